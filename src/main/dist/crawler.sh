@@ -0,0 +1,8 @@
+#!/bin/sh
+# Starts the crawler with the class data archive recorded at build time (refreshed automatically when the JDK
+# or jar changes) and the Playwright driver kept unpacked next to the jar.
+DIR="$(cd "$(dirname "$0")" && pwd)"
+exec java \
+  -XX:SharedArchiveFile="$DIR/crawler.jsa" -XX:+AutoCreateSharedArchive \
+  -Dcrawler.driver.dir="$DIR/driver" \
+  $JAVA_OPTS -jar "$DIR/crawler.jar" "$@"
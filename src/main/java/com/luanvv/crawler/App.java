@@ -1,15 +1,43 @@
 package com.luanvv.crawler;
 
+import com.luanvv.crawler.core.BrowserServer;
 import com.luanvv.crawler.core.Crawler;
+import com.luanvv.crawler.core.Daemon;
+import com.luanvv.crawler.core.Recrawl;
+import com.luanvv.crawler.core.SearchIndex;
+import com.luanvv.crawler.core.SelectorAnalyzer;
+import com.luanvv.crawler.core.Training;
+import com.luanvv.crawler.distributed.Coordinator;
+import com.luanvv.crawler.distributed.Worker;
+import com.luanvv.crawler.jfr.ProfileReport;
+import com.luanvv.crawler.server.DataServer;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class App {
     public static void main(String[] args) {
+        String command = args.length > 0 ? args[0] : "crawl";
+        CliArgs cli = CliArgs.parse(args, 1);
         try {
-            Crawler.run();
+            switch (command) {
+                case "crawl" -> Crawler.run();
+                case "daemon" -> Daemon.run(cli);
+                case "serve" -> DataServer.run(cli);
+                case "coordinator" -> Coordinator.run(cli);
+                case "worker" -> Worker.run(cli);
+                case "browser" -> BrowserServer.run(cli);
+                case "profile-report" -> ProfileReport.run(cli);
+                case "train" -> Training.run(cli);
+                case "recrawl" -> Recrawl.run(cli);
+                case "analyze" -> SelectorAnalyzer.run(cli);
+                case "search" -> SearchIndex.run(cli);
+                default -> {
+                    log.error("Unknown command '{}'. Available commands: crawl, daemon, serve, coordinator, worker, browser, profile-report, train, recrawl, analyze, search", command);
+                    System.exit(2);
+                }
+            }
         } catch (Exception e) {
-            log.error("Crawler failed", e);
+            log.error("Command '{}' failed", command, e);
             System.exit(1);
         }
     }
@@ -0,0 +1,46 @@
+package com.luanvv.crawler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Getter;
+
+public class CliArgs {
+    private final Map<String, String> options = new HashMap<>();
+    @Getter private final List<String> positional = new ArrayList<>();
+
+    public static CliArgs parse(String[] args, int from) {
+        CliArgs out = new CliArgs();
+        for (int i = from; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.startsWith("--")) {
+                String key = arg.substring(2);
+                int eq = key.indexOf('=');
+                if (eq >= 0) {
+                    out.options.put(key.substring(0, eq), key.substring(eq + 1));
+                } else if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                    out.options.put(key, args[++i]);
+                } else {
+                    out.options.put(key, "true");
+                }
+            } else {
+                out.positional.add(arg);
+            }
+        }
+        return out;
+    }
+
+    public String get(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    public int getInt(String name, int defaultValue) {
+        String value = options.get(name);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    public boolean has(String name) {
+        return options.containsKey(name);
+    }
+}
@@ -0,0 +1,134 @@
+package com.luanvv.crawler.core;
+
+import com.microsoft.playwright.Page;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+// The site throttles per login, so each account gets its own login, rate limit bucket and browser contexts.
+// Detail workers are spread round-robin over the accounts that still work.
+@Slf4j
+public class AccountPool {
+
+    public static class Account {
+        @Getter private final String name;
+        @Getter private final LoginManager loginManager;
+        @Getter private final RateLimiter limiter;
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private volatile String storageState;
+        private volatile boolean healthy = true;
+
+        Account(String name, LoginManager loginManager, RateLimiter limiter) {
+            this.name = name;
+            this.loginManager = loginManager;
+            this.limiter = limiter;
+        }
+
+        public boolean isHealthy() {
+            return healthy;
+        }
+
+        @Override
+        public String toString() {
+            return "account " + name;
+        }
+    }
+
+    private final List<Account> accounts = new ArrayList<>();
+    private final int maxFailures;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public AccountPool(Config config) {
+        Config.Login login = config.getLogin();
+        this.maxFailures = login != null ? Math.max(1, login.getMaxAccountFailures()) : Integer.MAX_VALUE;
+        if (login != null && login.getAccounts() != null && !login.getAccounts().isEmpty()) {
+            for (Config.Account account : login.getAccounts()) {
+                add(new Account(account.getUsernameEnv(),
+                    new LoginManager(config, account.getUsernameEnv(), account.getPasswordEnv()), RateLimiter.of(config)));
+            }
+        } else {
+            add(new Account(login != null ? login.getUsernameEnv() : "default", new LoginManager(config),
+                RateLimiter.of(config)));
+        }
+    }
+
+    // A worker that logs in again after its session expired leaves the fresh state here; new sessions would
+    // otherwise start from the expired one
+    private void add(Account account) {
+        account.loginManager.setOnLogin(storageState -> setStorageState(account, storageState));
+        accounts.add(account);
+    }
+
+    public int size() {
+        return accounts.size();
+    }
+
+    public List<Account> all() {
+        return accounts;
+    }
+
+    // Lists are paginated by the first account
+    public Account primary() {
+        return accounts.get(0);
+    }
+
+    public void setStorageState(Account account, String storageState) {
+        account.storageState = storageState;
+    }
+
+    public Account next() {
+        for (int i = 0; i < accounts.size(); i++) {
+            Account account = accounts.get(Math.floorMod(next.getAndIncrement(), accounts.size()));
+            if (account.healthy) return account;
+        }
+        throw new IllegalStateException("No working accounts left in the credential pool");
+    }
+
+    // Logs the account in once and hands out the resulting storage state, so workers don't each log in
+    public String login(Account account, Config config) {
+        synchronized (account) {
+            if (account.storageState != null) return account.storageState;
+            try (BrowserSession session = new BrowserSession(config)) {
+                session.start(null);
+                Page page = session.getPage();
+                if (!account.loginManager.ensureLoggedIn(page)) {
+                    markFailed(account, "login failed");
+                    return null;
+                }
+                account.storageState = session.storageState();
+            }
+            log.info("Logged in {}", account);
+            return account.storageState;
+        }
+    }
+
+    // A new run gives accounts taken out by the last one another chance, with a fresh login
+    public void reinstate() {
+        for (Account account : accounts) {
+            account.consecutiveFailures.set(0);
+            if (account.healthy) continue;
+            account.healthy = true;
+            account.storageState = null;
+            log.info("Putting {} back into rotation", account);
+        }
+    }
+
+    public void recordSuccess(Account account) {
+        account.consecutiveFailures.set(0);
+    }
+
+    public void recordFailure(Account account) {
+        if (account.consecutiveFailures.incrementAndGet() >= maxFailures) {
+            markFailed(account, maxFailures + " failures in a row");
+        }
+    }
+
+    public void markFailed(Account account, String reason) {
+        if (!account.healthy) return;
+        account.healthy = false;
+        long left = accounts.stream().filter(a -> a.healthy).count();
+        log.error("Taking {} out of rotation ({}), {} accounts left", account, reason, left);
+    }
+}
@@ -0,0 +1,171 @@
+package com.luanvv.crawler.core;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+
+// One JSON line per asset download: "started" before the first byte, "done" with length and sha256 once the file
+// has its final name. The last line per path wins. verify() re-queues downloads that never finished and files that
+// no longer match what was recorded, so a restart neither trusts truncated files nor fetches good ones again.
+@Slf4j
+public class AssetManifest {
+    public static final String STARTED = "started";
+    public static final String DONE = "done";
+    public static final String VERIFY_OFF = "off";
+    public static final String VERIFY_SIZE = "size";
+    public static final String VERIFY_CHECKSUM = "checksum";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+        .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    // path is relative to the output dir, with forward slashes
+    public record Entry(String time, String status, String path, String url, Long length, String sha256) {
+    }
+
+    private final Path file;
+    private final Path root;
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    private AssetManifest(Path file, Path root) throws IOException {
+        this.file = file;
+        this.root = root.toAbsolutePath();
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        load();
+    }
+
+    // Returns null when output.assetManifest is blank
+    public static AssetManifest open(Config.Output output, Path root) throws IOException {
+        String name = output.getAssetManifest();
+        if (name == null || name.isBlank()) return null;
+        return new AssetManifest(root.resolve(name), root);
+    }
+
+    private void load() throws IOException {
+        if (!Files.exists(file)) return;
+        int lines = 0;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) continue;
+            lines++;
+            try {
+                Entry entry = MAPPER.readValue(line, Entry.class);
+                entries.put(entry.path(), entry);
+            } catch (IOException e) {
+                // The last line of a killed run can be cut short
+                log.warn("Skipping unreadable asset manifest line: {}", line);
+            }
+        }
+        // Every download appends two lines, so rewrite the file once most of it is superseded
+        if (lines > 2 * entries.size() + 1000) compact();
+    }
+
+    private void compact() throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        List<String> lines = new ArrayList<>();
+        for (Entry entry : entries.values()) lines.add(MAPPER.writeValueAsString(entry));
+        Files.write(tmp, lines, StandardCharsets.UTF_8);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.debug("Compacted asset manifest {} to {} entries", file, entries.size());
+    }
+
+    public void started(Extractor.AssetTask task) {
+        append(new Entry(Instant.now().toString(), STARTED, key(task.path()), task.url().toString(), null, null));
+    }
+
+    public void done(Extractor.AssetTask task, Extractor.Download download) {
+        append(new Entry(Instant.now().toString(), DONE, key(task.path()), task.url().toString(),
+            download.length(), download.sha256()));
+    }
+
+    private synchronized void append(Entry entry) {
+        try {
+            Files.writeString(file, MAPPER.writeValueAsString(entry) + System.lineSeparator(), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+            entries.put(entry.path(), entry);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Assets that have to be downloaded again. Corrupt files are deleted first so fetch does not take them as done;
+    // unfinished downloads keep their .part file and resume from it.
+    public synchronized List<Extractor.AssetTask> verify(String mode) throws IOException {
+        List<Extractor.AssetTask> tasks = new ArrayList<>();
+        if (VERIFY_OFF.equalsIgnoreCase(mode)) return tasks;
+        boolean checksum = VERIFY_CHECKSUM.equalsIgnoreCase(mode);
+        int corrupt = 0;
+        for (Entry entry : List.copyOf(entries.values())) {
+            Path path = root.resolve(entry.path());
+            Extractor.AssetTask task = new Extractor.AssetTask(URI.create(entry.url()).toURL(), path);
+            if (STARTED.equals(entry.status())) {
+                if (Files.exists(path)) {
+                    // Only a complete download is renamed into place; the run stopped before recording it
+                    done(task, Extractor.Download.of(path));
+                } else {
+                    tasks.add(task);
+                }
+                continue;
+            }
+            if (!Files.exists(path)) {
+                tasks.add(task);
+                continue;
+            }
+            String problem = null;
+            long size = Files.size(path);
+            if (entry.length() != null && size != entry.length()) {
+                problem = size + " bytes instead of " + entry.length();
+            } else if (checksum && entry.sha256() != null && !entry.sha256().equals(sha256(path))) {
+                problem = "sha256 mismatch";
+            }
+            if (problem != null) {
+                log.warn("Asset {} is corrupt ({}), downloading it again", path, problem);
+                Files.delete(path);
+                tasks.add(task);
+                corrupt++;
+            }
+        }
+        log.info("Verified {} assets in {} ({}): {} to re-download, {} of them corrupt", entries.size(), file,
+            checksum ? VERIFY_CHECKSUM : VERIFY_SIZE, tasks.size(), corrupt);
+        return tasks;
+    }
+
+    private String key(Path path) {
+        return root.relativize(path.toAbsolutePath()).toString().replace('\\', '/');
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String sha256(Path path) throws IOException {
+        MessageDigest digest = newDigest();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(path), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,147 @@
+package com.luanvv.crawler.core;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+
+// Adjusts detail workers and the request rate between runs of tick(): back off hard on trouble (errors, slow
+// navigations, busy host), otherwise climb one step at a time while throughput keeps improving.
+// With several accounts each has its own limiter; they all get the same per-account rate.
+@Slf4j
+public class Autotuner {
+    private static final double MIN_IMPROVEMENT = 0.05;
+    private static final int HOLD_TICKS = 5;
+
+    private final Config.Autotune cfg;
+    private final Stage<?> stage;
+    private final List<RateLimiter> limiters;
+    private final Retryer retryer;
+    private final com.sun.management.OperatingSystemMXBean os;
+
+    private long lastTime = System.nanoTime();
+    private long lastCompleted;
+    private long lastFailed;
+    private long lastHandleMillis;
+    private long lastRetryFailures;
+    private long lastWaitMillis;
+    private double baselineLatencyMs;
+    private double lastThroughput;
+    private boolean lastWasIncrease;
+    private int prevConcurrency;
+    private double prevRate;
+    private int holdTicks;
+
+    public Autotuner(Config.Autotune cfg, Stage<?> stage, List<RateLimiter> limiters, Retryer retryer) {
+        this.cfg = cfg;
+        this.stage = stage;
+        this.limiters = limiters;
+        this.retryer = retryer;
+        this.os = ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean bean
+            ? bean : null;
+        // Start inside the configured bounds
+        apply(clamp(stage.getConcurrency()), clampRate(rate()), "initial bounds");
+    }
+
+    public synchronized void tick() {
+        try {
+            decide();
+        } catch (Exception e) {
+            log.warn("Autotuner tick failed: {}", e.toString());
+        }
+    }
+
+    private void decide() {
+        long now = System.nanoTime();
+        double seconds = (now - lastTime) / 1e9;
+        Stage.Snapshot s = stage.snapshot();
+        long retryFailures = retryer.failureCount();
+        long completedDelta = s.completed() - lastCompleted;
+        long done = completedDelta + (s.failed() - lastFailed);
+        long failedDelta = s.failed() - lastFailed;
+        long retryDelta = retryFailures - lastRetryFailures;
+        long waitMillis = limiters.stream().mapToLong(RateLimiter::waitMillis).sum();
+        // Time queued on the rate limiter is not the site being slow, so leave it out of latency
+        long handleDelta = Math.max(0, (s.handleMillis() - lastHandleMillis) - (waitMillis - lastWaitMillis));
+        lastTime = now;
+        lastCompleted = s.completed();
+        lastFailed = s.failed();
+        lastHandleMillis = s.handleMillis();
+        lastRetryFailures = retryFailures;
+        lastWaitMillis = waitMillis;
+
+        if (done == 0) {
+            // Nothing finished in this window: no signal to act on
+            lastWasIncrease = false;
+            return;
+        }
+        double throughput = completedDelta / seconds;
+        double latencyMs = (double) handleDelta / done;
+        double errorRate = (double) (failedDelta + retryDelta) / (done + retryDelta);
+        double cpu = os != null ? os.getCpuLoad() : -1;
+        double freeMemoryPct = os != null && os.getTotalMemorySize() > 0
+            ? 100.0 * os.getFreeMemorySize() / os.getTotalMemorySize() : 100;
+        if (baselineLatencyMs == 0 || latencyMs < baselineLatencyMs) baselineLatencyMs = latencyMs;
+
+        String observed = String.format("throughput=%.2f/s latency=%.0fms (best %.0fms) errors=%.1f%% cpu=%.0f%% freeMem=%.0f%%",
+            throughput, latencyMs, baselineLatencyMs, errorRate * 100, cpu * 100, freeMemoryPct);
+        int concurrency = stage.getConcurrency();
+        double rate = rate();
+
+        String trouble = null;
+        if (errorRate > cfg.getMaxErrorRate()) trouble = "error rate";
+        else if (latencyMs > baselineLatencyMs * cfg.getLatencyFactor()) trouble = "latency";
+        else if (cpu > cfg.getMaxCpu()) trouble = "CPU";
+        else if (freeMemoryPct < cfg.getMinFreeMemoryPct()) trouble = "memory";
+
+        if (trouble != null) {
+            apply(clamp((int) Math.floor(concurrency * cfg.getDecreaseFactor())),
+                clampRate(rate * cfg.getDecreaseFactor()), "back off on " + trouble + ", " + observed);
+            lastWasIncrease = false;
+            holdTicks = HOLD_TICKS;
+        } else if (lastWasIncrease && throughput < lastThroughput * (1 + MIN_IMPROVEMENT)) {
+            // The last step did not pay off: that is the knee, step back and stay there for a while
+            apply(prevConcurrency, prevRate, "no gain from last step, holding, " + observed);
+            lastWasIncrease = false;
+            holdTicks = HOLD_TICKS;
+        } else if (holdTicks > 0) {
+            holdTicks--;
+            log.debug("Autotuner holding ({} ticks left): {}", holdTicks, observed);
+            lastWasIncrease = false;
+        } else {
+            // Extra workers only help while detail pages are waiting; otherwise the rate is the limit
+            int nextConcurrency = s.depth() > 0 ? clamp(concurrency + 1) : concurrency;
+            double nextRate = clampRate(rate * (1 + cfg.getRateStep()));
+            if (nextConcurrency == concurrency && nextRate == rate) {
+                log.debug("Autotuner at upper bounds: {}", observed);
+                lastWasIncrease = false;
+            } else {
+                prevConcurrency = concurrency;
+                prevRate = rate;
+                apply(nextConcurrency, nextRate, "probe upwards, " + observed);
+                lastWasIncrease = true;
+            }
+        }
+        lastThroughput = throughput;
+    }
+
+    private void apply(int concurrency, double rate, String reason) {
+        int oldConcurrency = stage.getConcurrency();
+        double oldRate = rate();
+        if (concurrency != oldConcurrency) stage.setConcurrency(concurrency);
+        if (rate != oldRate) limiters.forEach(l -> l.setPermitsPerSecond(rate));
+        log.info("Autotuner: workers {} -> {}, rate {} -> {}/s ({})", oldConcurrency, concurrency,
+            String.format("%.2f", oldRate), String.format("%.2f", rate), reason);
+    }
+
+    private double rate() {
+        return limiters.get(0).getPermitsPerSecond();
+    }
+
+    private int clamp(int concurrency) {
+        return Math.max(cfg.getMinConcurrency(), Math.min(cfg.getMaxConcurrency(), concurrency));
+    }
+
+    private double clampRate(double rate) {
+        return Math.max(cfg.getMinPermitsPerSecond(), Math.min(cfg.getMaxPermitsPerSecond(), rate));
+    }
+}
@@ -0,0 +1,148 @@
+package com.luanvv.crawler.core;
+
+import com.luanvv.crawler.CliArgs;
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserType;
+import com.microsoft.playwright.Playwright;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+
+// Launches Chromium directly or attaches to a long-lived one so runs only pay for a new context
+@Slf4j
+public class BrowserServer {
+    public static final String MODE_LAUNCH = "launch";
+    public static final String MODE_CDP = "cdp";
+    public static final String MODE_CONNECT = "connect";
+
+    private static final long STARTUP_TIMEOUT_MS = 20000;
+    private static final HttpClient HTTP = HttpClient.newBuilder()
+        .connectTimeout(Duration.ofSeconds(1))
+        .build();
+
+    public static void run(CliArgs args) throws Exception {
+        if (args.getPositional().isEmpty()) {
+            log.error("Usage: browser <config.yaml>");
+            return;
+        }
+        Config config = Config.load(args.getPositional().get(0));
+        Config.Browser cfg = browserConfig(config);
+        if (!MODE_CDP.equalsIgnoreCase(cfg.getMode())) {
+            log.error("browser.mode must be '{}' to run a shared browser (is '{}')", MODE_CDP, cfg.getMode());
+            return;
+        }
+        try (Playwright playwright = PlaywrightDriver.create(config)) {
+            String endpoint = ensureRunning(playwright, config);
+            log.info("Browser is listening on {}", endpoint);
+        }
+    }
+
+    public static Config.Browser browserConfig(Config config) {
+        return config.getBrowser() != null ? config.getBrowser() : new Config.Browser();
+    }
+
+    public static boolean isRemote(Config config) {
+        return !MODE_LAUNCH.equalsIgnoreCase(browserConfig(config).getMode());
+    }
+
+    public static Browser obtain(Playwright playwright, Config config) throws IOException {
+        Config.Browser cfg = browserConfig(config);
+        String mode = cfg.getMode() == null ? MODE_LAUNCH : cfg.getMode().toLowerCase();
+        switch (mode) {
+            case MODE_LAUNCH -> {
+                BrowserType.LaunchOptions options = new BrowserType.LaunchOptions()
+                    .setHeadless(config.isHeadless())
+                    .setArgs(cfg.getArgs());
+                if (cfg.getExecutablePath() != null) options.setExecutablePath(Paths.get(cfg.getExecutablePath()));
+                return playwright.chromium().launch(options);
+            }
+            case MODE_CDP -> {
+                String endpoint = ensureRunning(playwright, config);
+                log.info("Attaching to browser at {}", endpoint);
+                return playwright.chromium().connectOverCDP(endpoint);
+            }
+            case MODE_CONNECT -> {
+                if (cfg.getEndpoint() == null) {
+                    throw new IllegalArgumentException("browser.endpoint is required in connect mode");
+                }
+                log.info("Connecting to browser server at {}", cfg.getEndpoint());
+                return playwright.chromium().connect(cfg.getEndpoint());
+            }
+            default -> throw new IllegalArgumentException("Unknown browser mode '" + cfg.getMode() + "'");
+        }
+    }
+
+    // Returns the CDP endpoint, starting a detached Chromium first when nothing answers there
+    static String ensureRunning(Playwright playwright, Config config) throws IOException {
+        Config.Browser cfg = browserConfig(config);
+        String endpoint = cdpEndpoint(cfg);
+        if (isHealthy(endpoint)) return endpoint;
+        if (!cfg.isAutoLaunch()) {
+            throw new IOException("No browser is answering at " + endpoint + " and browser.autoLaunch is off");
+        }
+        launchDetached(playwright, config, cfg);
+        long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT_MS;
+        while (System.currentTimeMillis() < deadline) {
+            if (isHealthy(endpoint)) return endpoint;
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for the browser", e);
+            }
+        }
+        throw new IOException("Browser did not come up at " + endpoint + " within " + STARTUP_TIMEOUT_MS + " ms");
+    }
+
+    static String cdpEndpoint(Config.Browser cfg) {
+        return cfg.getEndpoint() != null ? cfg.getEndpoint() : "http://127.0.0.1:" + cfg.getDebugPort();
+    }
+
+    static boolean isHealthy(String endpoint) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(endpoint + "/json/version"))
+                .timeout(Duration.ofSeconds(2))
+                .GET()
+                .build();
+            return HTTP.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void launchDetached(Playwright playwright, Config config, Config.Browser cfg) throws IOException {
+        String executable = cfg.getExecutablePath() != null
+            ? cfg.getExecutablePath()
+            : playwright.chromium().executablePath();
+        Path userDataDir = Paths.get(cfg.getUserDataDir()).toAbsolutePath();
+        Files.createDirectories(userDataDir);
+
+        List<String> command = new ArrayList<>();
+        command.add(executable);
+        command.add("--remote-debugging-port=" + cfg.getDebugPort());
+        command.add("--user-data-dir=" + userDataDir);
+        if (config.isHeadless()) command.add("--headless=new");
+        if (cfg.getArgs() != null) command.addAll(cfg.getArgs());
+        command.add("about:blank");
+
+        log.info("Launching shared browser: {}", String.join(" ", command));
+        // Not a child we wait on: the browser keeps running after this JVM exits
+        new ProcessBuilder(command)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .redirectError(ProcessBuilder.Redirect.appendTo(new File(userDataDir.toFile(), "browser.log")))
+            .start();
+    }
+}
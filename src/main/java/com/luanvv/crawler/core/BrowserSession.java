@@ -1,27 +1,240 @@
 package com.luanvv.crawler.core;
 
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import com.microsoft.playwright.Browser;
 import com.microsoft.playwright.BrowserContext;
-import com.microsoft.playwright.BrowserType;
+import com.microsoft.playwright.CDPSession;
 import com.microsoft.playwright.Page;
 import com.microsoft.playwright.Playwright;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
+@Slf4j
 @RequiredArgsConstructor
 public class BrowserSession implements AutoCloseable {
+    private static final double LATENCY_SMOOTHING = 0.3;
+
     private final Config config;
     @Getter private Playwright playwright;
     @Getter private Browser browser;
     @Getter private BrowserContext context;
     @Getter private Page page;
+    private Page prefetchPage;
+    private String lastStorageState;
+
+    // Loads since the page, context and browser were last replaced
+    private int pageLoads;
+    private int contextLoads;
+    private int browserLoads;
+    private int loadsSinceSample;
+    private CDPSession cdp;
+    private double baselineLoadMs;
+    private double smoothedLoadMs;
 
     public void start() {
-        playwright = Playwright.create();
-        BrowserType chromium = playwright.chromium();
-        browser = chromium.launch(new BrowserType.LaunchOptions().setHeadless(config.isHeadless()));
-        context = browser.newContext(new Browser.NewContextOptions());
+        start(null);
+    }
+
+    // storageState is the JSON from another context's storageState(), used to reuse its login
+    public void start(String storageState) {
+        playwright = PlaywrightDriver.create(config);
+        launchBrowser();
+        newContext(storageState);
+    }
+
+    // A shared browser may have been closed or crashed between items; reattach (and relaunch) if so
+    private void ensureBrowser() {
+        if (browser.isConnected()) return;
+        log.warn("Browser disconnected, reconnecting");
+        String state = lastStorageState;
+        launchBrowser();
+        newContext(state);
+    }
+
+    public String storageState() {
+        return context.storageState();
+    }
+
+    // Call only between work items: the current page may be replaced, so callers must re-read getPage().
+    // Returns true when anything was replaced.
+    public boolean recycleIfNeeded() {
+        Config.Recycle cfg = recycleConfig();
+        if (!browser.isConnected()) {
+            ensureBrowser();
+            return true;
+        }
+        if (!cfg.isEnabled()) return false;
+        String reason = null;
+        if (cfg.getBrowserNavigations() > 0 && browserLoads >= cfg.getBrowserNavigations()) {
+            reason = browserLoads + " navigations";
+        } else if (cfg.getSampleEvery() > 0 && loadsSinceSample >= cfg.getSampleEvery()) {
+            loadsSinceSample = 0;
+            reason = sample(cfg);
+        }
+        if (reason != null) {
+            recycleBrowser(reason);
+        } else if (cfg.getContextNavigations() > 0 && contextLoads >= cfg.getContextNavigations()) {
+            recycleContext();
+        } else if (cfg.getPageNavigations() > 0 && pageLoads >= cfg.getPageNavigations()) {
+            recyclePage();
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    // A second tab in the same context, used to load the next list page ahead of time
+    public Page prefetchPage() {
+        if (prefetchPage == null || prefetchPage.isClosed()) {
+            prefetchPage = context.newPage();
+        }
+        return prefetchPage;
+    }
+
+    // Makes the prefetch tab the current page; the old page becomes the next prefetch tab
+    public void swapPrefetchPage() {
+        Page previous = page;
+        page = prefetchPage();
+        prefetchPage = previous;
+        cdp = null;
+    }
+
+    public void closePrefetchPage() {
+        if (prefetchPage != null) {
+            closeQuietly(prefetchPage);
+            prefetchPage = null;
+        }
+    }
+
+    private Config.Recycle recycleConfig() {
+        return config.getRecycle() != null ? config.getRecycle() : new Config.Recycle();
+    }
+
+    private void launchBrowser() {
+        try {
+            browser = BrowserServer.obtain(playwright, config);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        browserLoads = 0;
+        baselineLoadMs = 0;
+        smoothedLoadMs = 0;
+    }
+
+    private void newContext(String storageState) {
+        Browser.NewContextOptions options = new Browser.NewContextOptions();
+        if (storageState != null) options.setStorageState(storageState);
+        HarArchive.configure(config, options);
+        lastStorageState = storageState;
+        context = browser.newContext(options);
+        HarArchive.route(config, context);
+        // Also counts tabs opened later for inline detail pages
+        context.onPage(p -> p.onLoad(loaded -> countLoad()));
+        contextLoads = 0;
+        newPage();
+    }
+
+    private void newPage() {
         page = context.newPage();
+        prefetchPage = null;
+        pageLoads = 0;
+        loadsSinceSample = 0;
+        cdp = null;
+    }
+
+    private void countLoad() {
+        pageLoads++;
+        contextLoads++;
+        browserLoads++;
+        loadsSinceSample++;
+    }
+
+    // Returns a reason to restart the browser, or null when the page's JS heap and load time look healthy
+    private String sample(Config.Recycle cfg) {
+        try {
+            if (cdp == null) {
+                cdp = context.newCDPSession(page);
+                cdp.send("Performance.enable");
+            }
+            JsonObject result = cdp.send("Performance.getMetrics");
+            double heapBytes = 0, navigationStart = 0, domContentLoaded = 0;
+            for (JsonElement el : result.getAsJsonArray("metrics")) {
+                JsonObject metric = el.getAsJsonObject();
+                double value = metric.get("value").getAsDouble();
+                switch (metric.get("name").getAsString()) {
+                    case "JSHeapUsedSize" -> heapBytes = value;
+                    case "NavigationStart" -> navigationStart = value;
+                    case "DomContentLoaded" -> domContentLoaded = value;
+                    default -> { }
+                }
+            }
+            long heapMb = (long) (heapBytes / (1024 * 1024));
+            if (cfg.getMaxPageHeapMb() > 0 && heapMb > cfg.getMaxPageHeapMb()) {
+                return "page JS heap " + heapMb + " MB";
+            }
+            if (domContentLoaded > navigationStart && navigationStart > 0) {
+                double loadMs = (domContentLoaded - navigationStart) * 1000;
+                if (baselineLoadMs == 0) {
+                    baselineLoadMs = loadMs;
+                    smoothedLoadMs = loadMs;
+                } else {
+                    smoothedLoadMs = LATENCY_SMOOTHING * loadMs + (1 - LATENCY_SMOOTHING) * smoothedLoadMs;
+                }
+                log.debug("Browser sample: page JS heap={} MB load={} ms (baseline {} ms)", heapMb, (long) smoothedLoadMs,
+                    (long) baselineLoadMs);
+                if (cfg.getMaxLoadSlowdown() > 0 && smoothedLoadMs > baselineLoadMs * cfg.getMaxLoadSlowdown()) {
+                    return String.format("load time %.0f ms vs baseline %.0f ms", smoothedLoadMs, baselineLoadMs);
+                }
+            }
+        } catch (Exception e) {
+            log.debug("Could not sample browser metrics: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    private void recyclePage() {
+        log.info("Recycling page after {} navigations", pageLoads);
+        closePrefetchPage();
+        closeQuietly(page);
+        newPage();
+    }
+
+    private void recycleContext() {
+        log.info("Recycling browser context after {} navigations", contextLoads);
+        String state = saveStorageState();
+        closeQuietly(context);
+        newContext(state);
+    }
+
+    private void recycleBrowser(String reason) {
+        log.info("Restarting browser ({})", reason);
+        String state = saveStorageState();
+        closeQuietly(context);
+        // A shared browser is only disconnected from; the fresh context is what gets rid of the old pages
+        closeQuietly(browser);
+        launchBrowser();
+        newContext(state);
+    }
+
+    private String saveStorageState() {
+        try {
+            lastStorageState = context.storageState();
+        } catch (Exception e) {
+            log.warn("Could not save storage state, reusing the previous one: {}", e.getMessage());
+        }
+        return lastStorageState;
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            log.warn("Failed to close {}: {}", closeable.getClass().getSimpleName(), e.getMessage());
+        }
     }
 
     @Override
@@ -1,5 +1,6 @@
 package com.luanvv.crawler.core;
 
+import com.fasterxml.jackson.annotation.JsonAlias;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
@@ -8,7 +9,9 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -22,6 +25,14 @@ public class Config {
     private RateLimit rateLimit;
     private Retries retries;
     private Output output;
+    private Distributed distributed;
+    private Pipeline pipeline;
+    private Recycle recycle;
+    private Browser browser;
+    private Autotune autotune;
+    private Schedule schedule;
+    private Har har;
+    private Budget budget;
     private List<CrawlerConfig> crawlers;
 
     @Data
@@ -34,6 +45,14 @@ public class Config {
         private String passwordEnv;
         private String loggedInCheckSelector;
         private long timeoutMs = 20000;
+        private List<Account> accounts; // optional pool; the first account also paginates lists
+        private int maxAccountFailures = 5; // consecutive failed detail pages before an account is dropped
+    }
+
+    @Data
+    public static class Account {
+        private String usernameEnv;
+        private String passwordEnv;
     }
 
     @Data
@@ -55,6 +74,150 @@ public class Config {
         private String dir = "data";
         private boolean json = true;
         private boolean csv = true;
+        private Parquet parquet;
+        private Store store;
+        private Search search;
+        private ImageVariants variants;
+        private String deadLetters = "dead-letters.jsonl"; // failures for `recrawl`, relative to dir; blank disables
+        private String assetManifest = "assets-manifest.jsonl"; // length and sha256 per download; blank disables
+        private String verifyAssets = "size"; // startup check of downloaded assets: off, size or checksum
+    }
+
+    @Data
+    public static class ImageVariants {
+        private boolean enabled = false;
+        private List<Integer> widths = List.of(160, 480);
+        private String format = "jpg"; // any ImageIO writer; webp needs an ImageIO plugin on the classpath
+        private double quality = 0.8;
+    }
+
+    @Data
+    public static class Store {
+        private boolean enabled = false;
+        private String dir = "store";
+    }
+
+    @Data
+    public static class Search {
+        private boolean enabled = false;
+        private String dir = "search";
+        private List<String> fields; // record keys to index as text; all of them when unset
+        private int commitEvery = 1000; // records between commits; uncommitted ones are lost on a crash
+    }
+
+    @Data
+    public static class Parquet {
+        private boolean enabled = false;
+        private String dir = "parquet";
+        private int rowGroupSizeMb = 16;
+        private int rowsPerFile = 100000;
+        private String compression = "SNAPPY";
+    }
+
+    @Data
+    public static class Browser {
+        private String mode = "launch"; // launch, cdp (attach to a shared Chromium) or connect (Playwright server)
+        private String endpoint; // cdp: http://host:port, connect: ws://...; cdp defaults to the local debugPort
+        private int debugPort = 9222;
+        private boolean autoLaunch = true;
+        private String executablePath; // defaults to Playwright's bundled Chromium
+        private String userDataDir = ".browser-profile";
+        private String driverDir; // keep Playwright's unpacked driver here instead of a fresh temp dir per run
+        private String browsersPath; // PLAYWRIGHT_BROWSERS_PATH, where downloaded browsers live
+        private List<String> args = List.of(
+            "--disable-extensions",
+            "--disable-background-networking",
+            "--disable-component-update",
+            "--disable-default-apps",
+            "--disable-sync",
+            "--disable-dev-shm-usage",
+            "--disable-renderer-backgrounding",
+            "--disable-background-timer-throttling",
+            "--disable-backgrounding-occluded-windows",
+            "--metrics-recording-only",
+            "--mute-audio",
+            "--no-first-run"
+        );
+    }
+
+    @Data
+    public static class Recycle {
+        private boolean enabled = true;
+        private int pageNavigations = 200;
+        private int contextNavigations = 1000;
+        private int browserNavigations = 5000;
+        private int sampleEvery = 25;
+        // JSHeapUsedSize of the current page, not the browser process; maxHeapMb is the old name
+        @JsonAlias("maxHeapMb")
+        private long maxPageHeapMb = 512;
+        private double maxLoadSlowdown = 3.0;
+    }
+
+    @Data
+    public static class Har {
+        private String mode = "off"; // off, record or replay
+        private String dir = "har"; // under output.dir; give each config its own
+        private boolean offline = true; // replay: abort requests no archive can answer instead of going live
+    }
+
+    @Data
+    public static class Budget {
+        private String deadline; // "HH:mm" (next occurrence) or ISO date-time; no new pages after it
+        private long maxDurationMs = 0; // 0 = no limit, as for the caps below
+        private long maxPages = 0; // list and detail pages
+        private long maxItems = 0; // records written
+        private long maxBytes = 0; // downloaded asset bytes
+        private long graceMs = 60000; // for in-flight pages and downloads once the budget is reached
+        private String resumeFile = "resume.json"; // under output.dir
+    }
+
+    @Data
+    public static class Schedule {
+        private long intervalMs = 0; // 0 uses the daemon's --interval
+        private String cron; // 5-field cron, takes precedence over intervalMs
+        private boolean runOnStart = true;
+    }
+
+    @Data
+    public static class Autotune {
+        private boolean enabled = false;
+        private long intervalMs = 30000;
+        private int minConcurrency = 1;
+        private int maxConcurrency = 8;
+        private double minPermitsPerSecond = 0.2;
+        private double maxPermitsPerSecond = 5.0;
+        private double rateStep = 0.25; // relative rate increase per probe
+        private double decreaseFactor = 0.5;
+        private double maxErrorRate = 0.05;
+        private double latencyFactor = 2.0; // back off when latency exceeds the best observed by this much
+        private double maxCpu = 0.85;
+        private double minFreeMemoryPct = 10;
+    }
+
+    @Data
+    public static class Pipeline {
+        private long reportIntervalMs = 10000;
+        private StageConfig listRows = new StageConfig(1, 200);
+        private StageConfig detail = new StageConfig(1, 20);
+        private StageConfig assets; // defaults to `parallelism` workers
+        private StageConfig sink = new StageConfig(1, 500);
+        private StageConfig variants = new StageConfig(2, 200);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StageConfig {
+        private int concurrency = 1;
+        private int queueCapacity = 100;
+    }
+
+    @Data
+    public static class Distributed {
+        private String host = "localhost";
+        private int port = 7070;
+        private long leaseMs = 120000;
+        private int maxAttempts = 3;
     }
 
     @Data
@@ -64,8 +227,29 @@ public class Config {
         private String type; // list or detail
         private String url;
         private String rootSelector;
+        private String source = "dom"; // dom, or xhr to read fields from a captured JSON response
+        private Xhr xhr;
         private Properties properties;
         private List<Field> fields;
+        private List<Link> children; // pages this crawler's pages or rows link to, crawled by other crawlers
+        private StageConfig stage; // workers and queue for this crawler's pages when reached through a link
+        private RateLimit rateLimit; // on top of the account's limit
+    }
+
+    @Data
+    public static class Link {
+        private String crawlId; // child crawler, list or detail
+        private String selector; // dom: elements to follow, within the row for list crawlers
+        private String attribute = "href";
+        private String jsonPath; // xhr: URL or array of URLs, relative to the row or record
+    }
+
+    @Data
+    public static class Xhr {
+        private String urlPattern; // regex matched against response URLs
+        private String itemsPath; // list: the array of rows; detail: the object holding the record
+        private String detailLinkPath; // list: path inside a row to the detail URL
+        private double timeoutMs = 30000;
     }
 
     @Data
@@ -77,6 +261,18 @@ public class Config {
         private String nextSelector;
         private String currentPageSelector;
         private int startPage = 1;
+        private boolean prefetch = false; // load the next list page in a second tab while rows are extracted
+        private Scroll scroll; // infinite-scroll or virtualized lists
+    }
+
+    @Data
+    public static class Scroll {
+        private boolean enabled = false;
+        private String container; // scrollable element; defaults to the page
+        private long waitMs = 1000; // after each scroll step, for new rows to render
+        private int idleRounds = 3; // stop after this many scrolls at the bottom without new keys
+        private boolean prune = false; // remove extracted rows from the DOM (not for virtualized tables)
+        private int maxRows = 0; // 0 = no limit
     }
 
     @Data
@@ -84,6 +280,7 @@ public class Config {
         private String id;
         private String name;
         private String selector;
+        private String jsonPath; // for xhr crawlers, relative to the row; defaults to the field name
         private String type; // text, html, select, checkbox, boolean, image, label
         private boolean multiple = false;
         private List<BooleanValue> values;
@@ -105,7 +302,9 @@ public class Config {
     public static Config load(Path path) throws IOException {
         ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
         try (InputStream in = Files.newInputStream(path)) {
-            return mapper.readValue(in, Config.class);
+            Config config = mapper.readValue(in, Config.class);
+            CrawlGraph.validate(config);
+            return config;
         }
     }
 
@@ -0,0 +1,138 @@
+package com.luanvv.crawler.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.microsoft.playwright.Locator;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Crawlers link to each other through properties.crawlId (a list row's detail page) and `children` (any crawler's
+// pages or rows). The links must form a DAG so every chain ends; crawlers only reached through `children` are not
+// started on their own.
+public class CrawlGraph {
+
+    // A link found on a page or row, to be crawled by `crawler` with the emitting record as its parent
+    public record Edge(Config.CrawlerConfig crawler, String url) {
+    }
+
+    public interface ChildSink {
+        void submit(Config.CrawlerConfig crawlerCfg, String url, String parentId) throws Exception;
+    }
+
+    public static void validate(Config config) {
+        if (config.getCrawlers() == null) return;
+        Map<String, Config.CrawlerConfig> byId = new HashMap<>();
+        for (Config.CrawlerConfig crawlerCfg : config.getCrawlers()) {
+            if (crawlerCfg.getId() != null) byId.put(crawlerCfg.getId(), crawlerCfg);
+        }
+        for (Config.CrawlerConfig crawlerCfg : config.getCrawlers()) {
+            for (Config.Link link : links(crawlerCfg)) {
+                if (link.getCrawlId() == null || !byId.containsKey(link.getCrawlId())) {
+                    throw new IllegalArgumentException("Crawler '" + crawlerCfg.getId()
+                        + "' links to unknown crawler '" + link.getCrawlId() + "'");
+                }
+                if (link.getSelector() == null && link.getJsonPath() == null) {
+                    throw new IllegalArgumentException("Link from crawler '" + crawlerCfg.getId() + "' to '"
+                        + link.getCrawlId() + "' needs a selector or jsonPath");
+                }
+            }
+        }
+        Set<String> done = new LinkedHashSet<>();
+        for (Config.CrawlerConfig crawlerCfg : config.getCrawlers()) {
+            visit(crawlerCfg.getId(), byId, new ArrayList<>(), done);
+        }
+    }
+
+    // Depth-first; a crawler met again on its own path closes a cycle
+    private static void visit(String id, Map<String, Config.CrawlerConfig> byId, List<String> path, Set<String> done) {
+        // An unknown crawlId is only warned about when a row uses it
+        if (id == null || done.contains(id) || !byId.containsKey(id)) return;
+        int at = path.indexOf(id);
+        if (at >= 0) {
+            List<String> cycle = new ArrayList<>(path.subList(at, path.size()));
+            cycle.add(id);
+            throw new IllegalArgumentException("Crawler links form a cycle: " + String.join(" -> ", cycle));
+        }
+        path.add(id);
+        for (String next : targets(byId.get(id))) {
+            visit(next, byId, path, done);
+        }
+        path.remove(path.size() - 1);
+        done.add(id);
+    }
+
+    private static List<String> targets(Config.CrawlerConfig crawlerCfg) {
+        List<String> targets = new ArrayList<>();
+        if (crawlerCfg.getProperties() != null && crawlerCfg.getProperties().getCrawlId() != null) {
+            targets.add(crawlerCfg.getProperties().getCrawlId());
+        }
+        links(crawlerCfg).forEach(link -> targets.add(link.getCrawlId()));
+        return targets;
+    }
+
+    private static List<Config.Link> links(Config.CrawlerConfig crawlerCfg) {
+        return crawlerCfg.getChildren() != null ? crawlerCfg.getChildren() : List.of();
+    }
+
+    // Crawlers that nothing links to through `children`; crawlId targets keep running on their own as before
+    public static boolean isRoot(Config config, Config.CrawlerConfig crawlerCfg) {
+        return config.getCrawlers().stream()
+            .flatMap(c -> links(c).stream())
+            .noneMatch(link -> crawlerCfg.getId().equals(link.getCrawlId()));
+    }
+
+    // Detail crawlers started on their own or only linked from root lists' rows. Deeper ones get a stage each, so
+    // stages only feed stages further down the graph and a full queue can never end up waiting on itself.
+    public static boolean isFirstLevel(Config config, Config.CrawlerConfig crawlerCfg) {
+        if (!isRoot(config, crawlerCfg)) return false;
+        return config.getCrawlers().stream()
+            .filter(c -> c.getProperties() != null && crawlerCfg.getId().equals(c.getProperties().getCrawlId()))
+            .allMatch(c -> isRoot(config, c));
+    }
+
+    // dom: every element matching a link's selector inside scope
+    public static List<Edge> edges(Config config, Config.CrawlerConfig crawlerCfg, Locator scope, String pageUrl) {
+        List<Edge> edges = new ArrayList<>();
+        for (Config.Link link : links(crawlerCfg)) {
+            if (link.getSelector() == null) continue;
+            Config.CrawlerConfig child = config.findCrawlerById(link.getCrawlId());
+            Set<String> urls = new LinkedHashSet<>();
+            for (Locator element : scope.locator(link.getSelector()).all()) {
+                String href = element.getAttribute(link.getAttribute());
+                if (href != null && !href.isBlank() && !href.startsWith("#") && !href.startsWith("javascript:")) {
+                    urls.add(UrlUtils.toAbsolute(pageUrl, href.trim()).toString());
+                }
+            }
+            urls.forEach(url -> edges.add(new Edge(child, url)));
+        }
+        return edges;
+    }
+
+    // xhr: the value or array at each link's jsonPath
+    public static List<Edge> edges(Config config, Config.CrawlerConfig crawlerCfg, JsonNode node) {
+        List<Edge> edges = new ArrayList<>();
+        if (node == null) return edges;
+        for (Config.Link link : links(crawlerCfg)) {
+            if (link.getJsonPath() == null) continue;
+            Config.CrawlerConfig child = config.findCrawlerById(link.getCrawlId());
+            JsonNode value = XhrSource.at(node, link.getJsonPath());
+            List<JsonNode> values = new ArrayList<>();
+            if (value.isArray()) {
+                value.forEach(values::add);
+            } else {
+                values.add(value);
+            }
+            Set<String> urls = new LinkedHashSet<>();
+            for (JsonNode v : values) {
+                if (v.isValueNode() && !v.asText().isBlank()) {
+                    urls.add(UrlUtils.toAbsolute(config.getBaseUrl(), v.asText()).toString());
+                }
+            }
+            urls.forEach(url -> edges.add(new Edge(child, url)));
+        }
+        return edges;
+    }
+}
@@ -0,0 +1,453 @@
+package com.luanvv.crawler.core;
+
+import com.microsoft.playwright.Page;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+
+// list pages (caller thread) -> list rows -> detail pages -> assets -> sink, connected by bounded queues.
+// Pages reached through `children` links feed back in. Child lists and detail crawlers below the first level get
+// workers of their own (sized by their `stage`), so every level of the crawl graph runs at the same time.
+@Slf4j
+public class CrawlPipeline implements AutoCloseable {
+    private static final int DEFAULT_ASSET_QUEUE = 200;
+
+    public record DetailTask(Config.CrawlerConfig crawlerCfg, String url, String parentId) {
+        @Override
+        public String toString() {
+            return "detail " + crawlerCfg.getId() + " " + url;
+        }
+    }
+
+    public record ListTask(Config.CrawlerConfig crawlerCfg, String url, String parentId, int startPage) {
+        @Override
+        public String toString() {
+            return "list " + crawlerCfg.getId() + " " + url;
+        }
+    }
+
+    public record RecordTask(Config.CrawlerConfig crawlerCfg, String name, String id, Map<String, Object> record) {
+        @Override
+        public String toString() {
+            return "record " + name;
+        }
+    }
+
+    private final Config config;
+    private final AccountPool accounts;
+    private final Retryer retryer;
+    private final Stage<ListCrawler.ListRow> listRows;
+    private final Stage<DetailTask> detail;
+    private final Map<String, Stage<DetailTask>> detailStages = new LinkedHashMap<>();
+    private final Map<String, Stage<ListTask>> listStages = new LinkedHashMap<>();
+    private final Map<String, RateLimiter> crawlerLimiters = new ConcurrentHashMap<>();
+    // crawler id + URL of every child submitted, so a page linked from many parents is crawled once
+    private final Set<String> linked = ConcurrentHashMap.newKeySet();
+    // Rows, pages and lists queued or running; any of them can queue more, so close() waits for zero first
+    private final AtomicLong outstanding = new AtomicLong();
+    private final Stage<Extractor.AssetTask> assets;
+    private final Stage<RecordTask> sink;
+    private final Stage<Path> variants;
+    private final List<Stage<?>> stages;
+    private final ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "pipeline-reporter");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Autotuner autotuner;
+    private Extractor extractor;
+    private RunBudget budget = RunBudget.unlimited();
+
+    public CrawlPipeline(Config config, RecordSink output, AccountPool accounts, Retryer retryer) {
+        this.config = config;
+        this.accounts = accounts;
+        this.retryer = retryer;
+        Config.Pipeline cfg = config.getPipeline() != null ? config.getPipeline() : new Config.Pipeline();
+        Config.StageConfig assetCfg = cfg.getAssets() != null
+            ? cfg.getAssets()
+            : new Config.StageConfig(config.getParallelism(), DEFAULT_ASSET_QUEUE);
+
+        this.listRows = new Stage<>("listRows", cfg.getListRows(), () -> row -> {
+            try {
+                handleRow(row);
+            } finally {
+                outstanding.decrementAndGet();
+            }
+        });
+        Config.StageConfig detailCfg = cfg.getDetail();
+        if (HarArchive.isReplaying(config) && detailCfg.getConcurrency() < config.getParallelism()) {
+            // Replay runs at local speed, so use every configured worker
+            detailCfg = new Config.StageConfig(config.getParallelism(),
+                Math.max(detailCfg.getQueueCapacity(), config.getParallelism() * 2));
+        }
+        if (detailCfg.getConcurrency() > 0 && detailCfg.getConcurrency() < accounts.size()) {
+            // At least one worker per account, otherwise extra accounts add nothing
+            detailCfg = new Config.StageConfig(accounts.size(), detailCfg.getQueueCapacity());
+        }
+        this.detail = new Stage<>("detail", detailCfg, DetailWorker::new);
+        for (Config.CrawlerConfig crawlerCfg : config.getCrawlers()) {
+            if (crawlerCfg.getRateLimit() != null) {
+                crawlerLimiters.put(crawlerCfg.getId(), RateLimiter.of(config, crawlerCfg.getRateLimit()));
+            }
+            Config.StageConfig stageCfg = crawlerCfg.getStage() != null ? crawlerCfg.getStage() : new Config.StageConfig();
+            if ("list".equalsIgnoreCase(crawlerCfg.getType()) && !CrawlGraph.isRoot(config, crawlerCfg)) {
+                listStages.put(crawlerCfg.getId(), new Stage<>("list:" + crawlerCfg.getId(), stageCfg, ListWorker::new));
+            } else if ("detail".equalsIgnoreCase(crawlerCfg.getType())
+                && (crawlerCfg.getStage() != null || !CrawlGraph.isFirstLevel(config, crawlerCfg))) {
+                detailStages.put(crawlerCfg.getId(), new Stage<>("detail:" + crawlerCfg.getId(), stageCfg,
+                    DetailWorker::new));
+            }
+        }
+        ImageVariants imageVariants = ImageVariants.of(config);
+        this.variants = imageVariants != null
+            ? new Stage<>("variants", cfg.getVariants(), () -> imageVariants::process)
+            : null;
+        this.assets = new Stage<>("assets", assetCfg, () -> task -> {
+            try {
+                Extractor.Download download = extractor.fetch(task);
+                if (download != null) budget.bytesDownloaded(download.length());
+            } catch (Exception e) {
+                extractor.deadLetter(DeadLetters.asset(task, e));
+                throw e;
+            }
+            // Resizing is CPU-bound, so it gets its own pool instead of holding a download slot
+            if (variants != null) variants.submit(task.path());
+        });
+        this.sink = new Stage<>("sink", cfg.getSink(),
+            () -> task -> {
+                output.write(task.crawlerCfg(), task.name(), task.id(), task.record());
+                budget.itemWritten();
+            });
+        List<Stage<?>> all = new ArrayList<>();
+        all.addAll(listStages.values());
+        all.add(listRows);
+        all.add(detail);
+        all.addAll(detailStages.values());
+        all.add(assets);
+        if (variants != null) all.add(variants);
+        all.add(sink);
+        this.stages = List.copyOf(all);
+
+        long interval = Math.max(1000, cfg.getReportIntervalMs());
+        reporter.scheduleAtFixedRate(this::report, interval, interval, TimeUnit.MILLISECONDS);
+
+        Config.Autotune tune = config.getAutotune();
+        this.autotuner = tune != null && tune.isEnabled() ? new Autotuner(tune, detail,
+            accounts.all().stream().map(AccountPool.Account::getLimiter).toList(), retryer) : null;
+    }
+
+    public void start(Extractor extractor) {
+        this.extractor = extractor;
+        stages.forEach(Stage::start);
+        if (autotuner != null) {
+            long interval = Math.max(1000, config.getAutotune().getIntervalMs());
+            reporter.scheduleAtFixedRate(autotuner::tick, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void setBudget(RunBudget budget) {
+        this.budget = budget;
+    }
+
+    public RunBudget budget() {
+        return budget;
+    }
+
+    public RecordSink recordSink() {
+        return (crawlerCfg, name, id, record) -> put(sink, new RecordTask(crawlerCfg, name, id, record));
+    }
+
+    public Extractor.AssetSink assetSink() {
+        return assets::submit;
+    }
+
+    public ListCrawler.RowHandler rowHandler() {
+        return row -> feed(listRows, row);
+    }
+
+    // The crawler's own rate limit, or null when it only has the account's
+    public RateLimiter limiter(Config.CrawlerConfig crawlerCfg) {
+        return crawlerLimiters.get(crawlerCfg.getId());
+    }
+
+    public void submitDetail(Config.CrawlerConfig crawlerCfg, String url, String parentId) throws InterruptedException {
+        feed(detailStage(crawlerCfg), new DetailTask(crawlerCfg, url, parentId));
+    }
+
+    public void submitList(Config.CrawlerConfig crawlerCfg, String url, String parentId, int startPage)
+        throws InterruptedException {
+        Stage<ListTask> stage = listStages.get(crawlerCfg.getId());
+        if (stage == null) {
+            log.warn("List crawler '{}' is not the target of any link, dropping {}", crawlerCfg.getId(), url);
+            return;
+        }
+        linked.add(crawlerCfg.getId() + " " + url);
+        feed(stage, new ListTask(crawlerCfg, url, parentId, startPage));
+    }
+
+    // The CrawlGraph.ChildSink of every page and row in the pipeline
+    public void submitChild(Config.CrawlerConfig crawlerCfg, String url, String parentId) throws InterruptedException {
+        if (!linked.add(crawlerCfg.getId() + " " + url)) return;
+        if ("list".equalsIgnoreCase(crawlerCfg.getType())) {
+            ListTask task = new ListTask(crawlerCfg, url, parentId, crawlerCfg.getProperties().getStartPage());
+            if (budget.isExhausted()) {
+                defer(task);
+            } else {
+                feed(listStages.get(crawlerCfg.getId()), task);
+            }
+        } else {
+            DetailTask task = new DetailTask(crawlerCfg, url, parentId);
+            if (budget.isExhausted()) {
+                defer(task);
+            } else {
+                feed(detailStage(crawlerCfg), task);
+            }
+        }
+    }
+
+    private Stage<DetailTask> detailStage(Config.CrawlerConfig crawlerCfg) {
+        return detailStages.getOrDefault(crawlerCfg.getId(), detail);
+    }
+
+    // Submits work that can lead to more work; its handler decrements outstanding when done
+    private <T> void feed(Stage<T> stage, T item) throws InterruptedException {
+        outstanding.incrementAndGet();
+        try {
+            stage.submit(item);
+        } catch (InterruptedException | RuntimeException e) {
+            outstanding.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void handleRow(ListCrawler.ListRow row) throws InterruptedException {
+        sink.submit(new RecordTask(row.crawlerCfg(), ListCrawler.listRecordName(row), row.uniqueId(), row.record()));
+        for (CrawlGraph.Edge child : row.children()) {
+            submitChild(child.crawler(), child.url(), row.uniqueId());
+        }
+        if (row.detailCrawler() == null) return;
+        DetailTask task = new DetailTask(row.detailCrawler(), row.detailUrl(), row.uniqueId());
+        if (budget.isExhausted()) {
+            defer(task);
+        } else {
+            feed(detailStage(row.detailCrawler()), task);
+        }
+    }
+
+    private void defer(DetailTask task) {
+        budget.defer(DeadLetters.Entry.of(DeadLetters.DETAIL, task.crawlerCfg(), task.url(), task.parentId(), null)
+            .deferred(budget.getReason()));
+    }
+
+    private void defer(ListTask task) {
+        budget.defer(DeadLetters.Entry.of(DeadLetters.LIST, task.crawlerCfg(), task.url(), task.parentId(),
+            task.startPage()).deferred(budget.getReason()));
+    }
+
+    private <T> void put(Stage<T> stage, T item) {
+        try {
+            stage.submit(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for stage " + stage.getName(), e);
+        }
+    }
+
+    // Each worker logs in as one account of the pool and moves to another if that account stops working
+    private abstract class BrowserWorker<T> implements Stage.Handler<T> {
+        protected AccountPool.Account account;
+        protected BrowserSession session;
+
+        @Override
+        public void handle(T task) throws Exception {
+            try {
+                // Queued pages are not started once the budget is spent; only the ones already open finish
+                if (budget.isExhausted()) {
+                    defer(task);
+                    return;
+                }
+                if (account != null && !account.isHealthy()) {
+                    log.info("Worker leaving {}", account);
+                    close();
+                }
+                while (session == null) {
+                    open(accounts.next());
+                }
+                session.recycleIfNeeded();
+                try {
+                    crawl(task);
+                    accounts.recordSuccess(account);
+                } catch (Exception e) {
+                    accounts.recordFailure(account);
+                    throw e;
+                }
+            } finally {
+                outstanding.decrementAndGet();
+            }
+        }
+
+        protected abstract void crawl(T task) throws Exception;
+
+        protected abstract void defer(T task);
+
+        protected abstract void opened(AccountPool.Account candidate);
+
+        private void open(AccountPool.Account candidate) {
+            String storageState = accounts.login(candidate, config);
+            if (storageState == null) return;
+            // Playwright objects are bound to the thread that created them, so each worker owns a browser
+            session = new BrowserSession(config);
+            session.start(storageState);
+            account = candidate;
+            opened(candidate);
+        }
+
+        @Override
+        public void close() {
+            if (session != null) session.close();
+            session = null;
+            account = null;
+        }
+    }
+
+    private class DetailWorker extends BrowserWorker<DetailTask> {
+        private DetailCrawler crawler;
+
+        @Override
+        protected void opened(AccountPool.Account candidate) {
+            crawler = new DetailCrawler(config, candidate.getLimiter(), retryer, extractor, candidate.getLoginManager());
+            crawler.setChildSink(CrawlPipeline.this::submitChild);
+        }
+
+        @Override
+        protected void crawl(DetailTask task) throws Exception {
+            Page page = session.getPage();
+            crawler.setCrawlerLimiter(limiter(task.crawlerCfg()));
+            try {
+                crawler.crawl(page, task.crawlerCfg(), recordSink(), task.url(), task.parentId());
+                budget.pageDone();
+            } catch (Exception e) {
+                extractor.deadLetter(DeadLetters.Entry.of(DeadLetters.DETAIL, task.crawlerCfg(), task.url(),
+                    task.parentId(), null).failed(null, e));
+                throw e;
+            }
+        }
+
+        @Override
+        protected void defer(DetailTask task) {
+            CrawlPipeline.this.defer(task);
+        }
+    }
+
+    // Crawls a child list from the linked URL. Its rows are handed off on this thread rather than through listRows,
+    // which only root lists feed.
+    private class ListWorker extends BrowserWorker<ListTask> {
+        private ListCrawler crawler;
+
+        @Override
+        protected void opened(AccountPool.Account candidate) {
+            crawler = new ListCrawler(config, candidate.getLimiter(), retryer, extractor, candidate.getLoginManager());
+            crawler.setRowHandler(CrawlPipeline.this::handleRow);
+            crawler.setBudget(budget);
+        }
+
+        @Override
+        protected void crawl(ListTask task) throws Exception {
+            crawler.setCrawlerLimiter(limiter(task.crawlerCfg()));
+            try {
+                int stoppedAt = crawler.crawlFrom(session, task.crawlerCfg(), recordSink(), task.url(),
+                    task.parentId(), task.startPage());
+                if (stoppedAt > 0) {
+                    defer(new ListTask(task.crawlerCfg(), task.url(), task.parentId(), stoppedAt));
+                }
+            } catch (Exception e) {
+                extractor.deadLetter(DeadLetters.Entry.of(DeadLetters.LIST, task.crawlerCfg(), task.url(),
+                    task.parentId(), task.startPage()).failed(null, e));
+                throw e;
+            }
+        }
+
+        @Override
+        protected void defer(ListTask task) {
+            CrawlPipeline.this.defer(task);
+        }
+    }
+
+    private void report() {
+        List<Stage.Snapshot> snapshots = stages.stream().map(Stage::snapshot).toList();
+        StringBuilder sb = new StringBuilder("Pipeline");
+        for (Stage.Snapshot s : snapshots) {
+            sb.append(String.format(" | %s queue=%d/%d busy=%d/%d done=%d failed=%d avg=%.0fms blocked=%dms",
+                s.name(), s.depth(), s.capacity(), s.busy(), s.workers(), s.completed(), s.failed(),
+                s.avgMillis(), s.blockedMillis()));
+        }
+        snapshots.stream()
+            .filter(s -> s.depth() > 0)
+            .max(Comparator.comparingDouble(Stage.Snapshot::fill))
+            .ifPresent(s -> sb.append(" | slowest=").append(s.name()));
+        log.info(sb.toString());
+    }
+
+    // Pages can link to more pages, so nothing is closed until that work has run out (or the budget's grace period
+    // has). Upstream stages then drain first so everything they emit still has somewhere to go. With a budget,
+    // pages and downloads get until its grace period ends and the rest is deferred; variants and writes always
+    // finish, so no output file is left half written.
+    @Override
+    public void close() {
+        awaitQuiet();
+        Long drainBy = budget.drainBy();
+        if (drainBy == null) {
+            for (Stage<?> stage : stages) {
+                stage.close();
+            }
+        } else {
+            // Once the budget is spent pages stop linking onwards, so only lists still feed rows
+            for (Stage<ListTask> stage : listStages.values()) {
+                stage.drain(drainBy).forEach(this::defer);
+            }
+            for (ListCrawler.ListRow row : listRows.drain(drainBy)) {
+                // Only the hand-off is left, and with the budget spent it just writes the row and defers its links
+                try {
+                    handleRow(row);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while writing list rows", e);
+                }
+            }
+            detail.drain(drainBy).forEach(this::defer);
+            for (Stage<DetailTask> stage : detailStages.values()) {
+                stage.drain(drainBy).forEach(this::defer);
+            }
+            for (Extractor.AssetTask task : assets.drain(drainBy)) {
+                budget.defer(DeadLetters.deferredAsset(task, budget.getReason()));
+            }
+            if (variants != null) variants.close();
+            sink.close();
+            if (budget.isExhausted()) log.info("Run budget used: {}", budget.summary());
+        }
+        reporter.shutdownNow();
+        report();
+    }
+
+    private void awaitQuiet() {
+        Long drainBy;
+        while (outstanding.get() > 0 && ((drainBy = budget.drainBy()) == null || System.currentTimeMillis() < drainBy)) {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
@@ -1,11 +1,11 @@
 package com.luanvv.crawler.core;
 
 import com.microsoft.playwright.Page;
+import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 
@@ -20,7 +20,7 @@ public class Crawler {
     public static void run() throws Exception {
         List<Path> configFiles = listConfigFiles()
             .stream()
-            .filter(p -> EXCLUDE_FILES.stream().noneMatch(name -> p.toString().endsWith(name)))
+            .filter(p -> !isExcluded(p))
             .toList();
         if (configFiles.isEmpty()) {
             log.error("No config files found in crawler-configs");
@@ -29,7 +29,11 @@ public class Crawler {
         runWithConfigs(configFiles.stream().map(Path::toString).collect(Collectors.toList()));
     }
 
-    private static List<Path> listConfigFiles() throws Exception {
+    static boolean isExcluded(Path configFile) {
+        return EXCLUDE_FILES.stream().anyMatch(name -> configFile.toString().endsWith(name));
+    }
+
+    static List<Path> listConfigFiles() throws Exception {
         // 1. Try external directory (for development)
         Path externalDir = Paths.get("src/main/resources", "crawler-configs");
         if (Files.isDirectory(externalDir)) {
@@ -96,16 +100,33 @@ public class Crawler {
     }
 
     private static void runWithConfig(Config config) throws Exception {
-        try (BrowserSession session = new BrowserSession(config);
-            ExecutorService executor = java.util.concurrent.Executors.newFixedThreadPool(20)
-        ) {
+        try (BrowserSession session = new BrowserSession(config)) {
             session.start();
+            runWithSession(config, session);
+        }
+    }
+
+    public static void runWithSession(Config config, BrowserSession session) throws Exception {
+        runWithSession(config, session, new AccountPool(config));
+    }
+
+    // Leaves the session open and the accounts logged in, so the daemon can reuse both for the next run
+    public static void runWithSession(Config config, BrowserSession session, AccountPool accounts) throws Exception {
+        accounts.reinstate();
+        LoginManager loginManager = accounts.primary().getLoginManager();
+        RateLimiter limiter = accounts.primary().getLimiter();
+        Retryer retryer = new Retryer(config.getRetries());
+        RunBudget budget = new RunBudget(config.getBudget());
+        ResumeFile resume = ResumeFile.load(config);
+        try (OutputWriters writers = new OutputWriters(config.getOutput());
+            DeadLetters deadLetters = DeadLetters.open(config, resume != null && resume.isResuming());
+            CrawlPipeline pipeline = new CrawlPipeline(config, writers, accounts, retryer)
+        ) {
+            pipeline.setBudget(budget);
+            session.recycleIfNeeded();
             Page page = session.getPage();
-            LoginManager loginManager = new LoginManager(config);
-            RateLimiter limiter = new RateLimiter(config.getRateLimit());
-            Retryer retryer = new Retryer(config.getRetries());
-            OutputWriters writers = new OutputWriters(config.getOutput());
-            Extractor extractor = new Extractor(config, config.getOutput().getDir(), executor);
+            Extractor extractor = new Extractor(config, config.getOutput().getDir(), pipeline.assetSink());
+            extractor.setDeadLetters(deadLetters);
 
             // Ensure login
             boolean loginOk = retryer.runWithRetry("login", () -> {
@@ -113,31 +134,77 @@ public class Crawler {
                 throw new RuntimeException("login failed");
             });
             if (!loginOk) throw new RuntimeException("Cannot login");
+            accounts.setStorageState(accounts.primary(), session.storageState());
+            pipeline.start(extractor);
+            extractor.verifyAssets();
+            if (resume != null) submitPending(config, resume, pipeline, extractor);
 
             // Iterate through all crawlers
             for (Config.CrawlerConfig crawlerCfg : config.getCrawlers()) {
+                if (!CrawlGraph.isRoot(config, crawlerCfg)) {
+                    // Only runs on pages other crawlers link to; anything it did not get to is in the deferred list
+                    if (resume != null) resume.finished(crawlerCfg);
+                    continue;
+                }
+                if (budget.isExhausted()) {
+                    log.info("Run budget reached, not starting crawler '{}'", crawlerCfg.getId());
+                    continue;
+                }
+                if (resume != null && resume.isDone(crawlerCfg)) {
+                    log.info("Crawler '{}' finished in an earlier run of this cycle, skipping", crawlerCfg.getId());
+                    continue;
+                }
                 log.info("Starting crawler: {} (type: {})", crawlerCfg.getId(), crawlerCfg.getType());
                 
                 if ("list".equalsIgnoreCase(crawlerCfg.getType())) {
                     ListCrawler listCrawler = new ListCrawler(config, limiter, retryer, extractor, loginManager);
-                    listCrawler.crawl(page, crawlerCfg, writers);
+                    listCrawler.setRowHandler(pipeline.rowHandler());
+                    listCrawler.setBudget(budget);
+                    listCrawler.setCrawlerLimiter(pipeline.limiter(crawlerCfg));
+                    int startPage = resume != null
+                        ? resume.startPage(crawlerCfg)
+                        : crawlerCfg.getProperties().getStartPage();
+                    int stoppedAt = listCrawler.crawl(session, crawlerCfg, pipeline.recordSink(), startPage);
+                    if (resume != null && stoppedAt > 0) {
+                        resume.stopped(crawlerCfg, stoppedAt);
+                    } else if (resume != null) {
+                        resume.finished(crawlerCfg);
+                    }
                 } else if ("detail".equalsIgnoreCase(crawlerCfg.getType())) {
-                    DetailCrawler detailCrawler = new DetailCrawler(config, limiter, retryer, extractor, loginManager);
-                    detailCrawler.crawl(page, crawlerCfg, writers, null);
+                    pipeline.submitDetail(crawlerCfg, null, null);
+                    if (resume != null) resume.finished(crawlerCfg);
                 } else {
                     log.warn("Unknown crawler type '{}' for crawler '{}'", crawlerCfg.getType(), crawlerCfg.getId());
                 }
             }
-            executor.shutdown();
-            try {
-                if (!executor.awaitTermination(60, java.util.concurrent.TimeUnit.SECONDS)) {
-                    executor.shutdownNow();
+        }
+        // After the pipeline has drained, so the tasks it deferred are known
+        if (resume != null) resume.save(config, budget);
+        log.info("Crawling completed successfully");
+    }
+
+    // Pages, linked lists and assets a budget-stopped run had queued but not started
+    private static void submitPending(Config config, ResumeFile resume, CrawlPipeline pipeline, Extractor extractor)
+        throws Exception {
+        for (DeadLetters.Entry entry : resume.pending()) {
+            if (DeadLetters.ASSET.equals(entry.kind())) {
+                Path path = Paths.get(entry.path());
+                if (extractor.queueAsset(path)) {
+                    pipeline.assetSink().submit(new Extractor.AssetTask(URI.create(entry.url()).toURL(), path));
                 }
-            } catch (InterruptedException e) {
-                executor.shutdownNow();
-                Thread.currentThread().interrupt();
+                continue;
+            }
+            Config.CrawlerConfig crawlerCfg = config.findCrawlerById(entry.crawlerId());
+            if (crawlerCfg == null) {
+                log.warn("Crawler '{}' is no longer in the config, dropping deferred {}", entry.crawlerId(), entry.url());
+                continue;
+            }
+            if (DeadLetters.LIST.equals(entry.kind())) {
+                int startPage = entry.pageNumber() != null ? entry.pageNumber() : crawlerCfg.getProperties().getStartPage();
+                pipeline.submitList(crawlerCfg, entry.url(), entry.parentId(), startPage);
+            } else {
+                pipeline.submitDetail(crawlerCfg, entry.url(), entry.parentId());
             }
-            log.info("Crawling completed successfully");
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,98 @@
+package com.luanvv.crawler.core;
+
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+
+// Standard 5-field cron: minute hour day-of-month month day-of-week, with *, lists, ranges and /steps
+public class CronSchedule {
+    private static final int MAX_STEPS = 500_000;
+
+    private final String expression;
+    private final BitSet minutes;
+    private final BitSet hours;
+    private final BitSet daysOfMonth;
+    private final BitSet months;
+    private final BitSet daysOfWeek;
+    private final boolean anyDayOfMonth;
+    private final boolean anyDayOfWeek;
+
+    public CronSchedule(String expression) {
+        this.expression = expression;
+        String[] parts = expression.trim().split("\\s+");
+        if (parts.length != 5) {
+            throw new IllegalArgumentException("Cron expression needs 5 fields: " + expression);
+        }
+        minutes = parse(parts[0], 0, 59);
+        hours = parse(parts[1], 0, 23);
+        daysOfMonth = parse(parts[2], 1, 31);
+        months = parse(parts[3], 1, 12);
+        daysOfWeek = parse(parts[4], 0, 7);
+        // 0 and 7 are both Sunday
+        if (daysOfWeek.get(7)) daysOfWeek.set(0);
+        anyDayOfMonth = parts[2].equals("*");
+        anyDayOfWeek = parts[4].equals("*");
+    }
+
+    private static BitSet parse(String field, int min, int max) {
+        BitSet bits = new BitSet(max + 1);
+        for (String part : field.split(",")) {
+            int step = 1;
+            int slash = part.indexOf('/');
+            if (slash >= 0) {
+                step = Integer.parseInt(part.substring(slash + 1));
+                part = part.substring(0, slash);
+            }
+            int from;
+            int to;
+            if (part.equals("*")) {
+                from = min;
+                to = max;
+            } else if (part.contains("-")) {
+                String[] range = part.split("-");
+                from = Integer.parseInt(range[0]);
+                to = Integer.parseInt(range[1]);
+            } else {
+                from = Integer.parseInt(part);
+                to = slash >= 0 ? max : from;
+            }
+            if (from < min || to > max || from > to || step < 1) {
+                throw new IllegalArgumentException("Invalid cron field '" + field + "'");
+            }
+            for (int i = from; i <= to; i += step) bits.set(i);
+        }
+        return bits;
+    }
+
+    // The first matching minute strictly after the given time
+    public ZonedDateTime next(ZonedDateTime after) {
+        ZonedDateTime t = after.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+        for (int i = 0; i < MAX_STEPS; i++) {
+            if (!months.get(t.getMonthValue())) {
+                t = t.withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS).plusMonths(1);
+            } else if (!dayMatches(t)) {
+                t = t.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+            } else if (!hours.get(t.getHour())) {
+                t = t.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+            } else if (!minutes.get(t.getMinute())) {
+                t = t.plusMinutes(1);
+            } else {
+                return t;
+            }
+        }
+        throw new IllegalStateException("Cron expression never fires: " + expression);
+    }
+
+    private boolean dayMatches(ZonedDateTime t) {
+        boolean dom = daysOfMonth.get(t.getDayOfMonth());
+        boolean dow = daysOfWeek.get(t.getDayOfWeek().getValue() % 7);
+        // Like cron: when both fields are restricted, either one matching is enough
+        if (!anyDayOfMonth && !anyDayOfWeek) return dom || dow;
+        return dom && dow;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+}
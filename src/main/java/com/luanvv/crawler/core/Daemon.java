@@ -0,0 +1,209 @@
+package com.luanvv.crawler.core;
+
+import com.luanvv.crawler.CliArgs;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+// Keeps one JVM running: each config is crawled on its own schedule and reloaded when its file changes.
+// Runs happen one at a time on this thread, which also owns every browser session, so sessions stay warm between runs.
+@Slf4j
+public class Daemon implements AutoCloseable {
+    private static final long IDLE_POLL_MS = 60_000;
+    private static final long DEBOUNCE_MS = 500;
+
+    private static class Job {
+        final Path path;
+        Config config;
+        long modified;
+        CronSchedule cron;
+        ZonedDateTime nextRun;
+        BrowserSession session;
+        // Kept with the session so accounts stay logged in between runs
+        AccountPool accounts;
+
+        Job(Path path) {
+            this.path = path;
+        }
+    }
+
+    private final Path dir;
+    private final long defaultIntervalMs;
+    private final Map<Path, Job> jobs = new LinkedHashMap<>();
+
+    public Daemon(Path dir, long defaultIntervalMs) {
+        this.dir = dir;
+        this.defaultIntervalMs = defaultIntervalMs;
+    }
+
+    public static void run(CliArgs args) throws Exception {
+        Path defaultDir = Files.isDirectory(Paths.get("src/main/resources", "crawler-configs"))
+            ? Paths.get("src/main/resources", "crawler-configs")
+            : Paths.get("crawler-configs");
+        Path dir = Paths.get(args.get("dir", defaultDir.toString()));
+        if (!Files.isDirectory(dir)) {
+            log.error("Config directory not found: {}. Usage: daemon [--dir crawler-configs] [--interval 30]", dir);
+            return;
+        }
+        long intervalMs = TimeUnit.MINUTES.toMillis(args.getInt("interval", 30));
+        try (Daemon daemon = new Daemon(dir, intervalMs)) {
+            daemon.loop();
+        }
+    }
+
+    public void loop() throws IOException, InterruptedException {
+        try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+            dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+            try (var stream = Files.list(dir)) {
+                stream.filter(Daemon::isConfigFile).sorted().forEach(this::reload);
+            }
+            log.info("Daemon watching {} with {} configs", dir, jobs.size());
+
+            while (!Thread.currentThread().isInterrupted()) {
+                Job due = jobs.values().stream()
+                    .filter(j -> j.nextRun != null)
+                    .min(Comparator.comparing(j -> j.nextRun))
+                    .orElse(null);
+                long waitMs = due == null
+                    ? IDLE_POLL_MS
+                    : Math.max(0, Duration.between(ZonedDateTime.now(), due.nextRun).toMillis());
+                WatchKey key = watcher.poll(waitMs, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    applyChanges(watcher, key);
+                    continue;
+                }
+                runDue();
+            }
+        }
+    }
+
+    private void applyChanges(WatchService watcher, WatchKey first) throws InterruptedException {
+        // Editors write in several steps; collect everything that settles within the debounce window
+        Set<Path> changed = new HashSet<>();
+        WatchKey key = first;
+        while (key != null) {
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.context() instanceof Path name) changed.add(dir.resolve(name));
+            }
+            key.reset();
+            key = watcher.poll(DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+        }
+        changed.stream().filter(Daemon::isConfigFile).sorted().forEach(this::reload);
+    }
+
+    private void reload(Path path) {
+        Job job = jobs.get(path);
+        if (!Files.exists(path)) {
+            if (job != null) {
+                log.info("Config {} removed, unscheduling", path.getFileName());
+                closeSession(job);
+                jobs.remove(path);
+            }
+            return;
+        }
+        try {
+            long modified = Files.getLastModifiedTime(path).toMillis();
+            if (job != null && job.modified == modified) return;
+            Config config = Config.load(path);
+            Config.Schedule schedule = config.getSchedule() != null ? config.getSchedule() : new Config.Schedule();
+            CronSchedule cron = schedule.getCron() != null && !schedule.getCron().isBlank()
+                ? new CronSchedule(schedule.getCron())
+                : null;
+            boolean isNew = job == null;
+            if (isNew) {
+                job = new Job(path);
+                jobs.put(path, job);
+            } else {
+                // Base URL, login or browser settings may have changed, so the old session can't be trusted
+                closeSession(job);
+            }
+            job.config = config;
+            job.modified = modified;
+            job.cron = cron;
+            ZonedDateTime now = ZonedDateTime.now();
+            job.nextRun = isNew && schedule.isRunOnStart() ? now : nextRun(job, now);
+            log.info("{} config {}: next run at {}{}", isNew ? "Loaded" : "Reloaded", path.getFileName(), job.nextRun,
+                cron != null ? " (cron " + cron + ")" : "");
+        } catch (Exception e) {
+            // Keep running the previous version rather than dropping the config over a typo
+            log.error("Could not load config {}, keeping the previous version: {}", path.getFileName(), e.getMessage());
+        }
+    }
+
+    private void runDue() {
+        ZonedDateTime now = ZonedDateTime.now();
+        List<Job> due = new ArrayList<>();
+        for (Job job : jobs.values()) {
+            if (job.nextRun != null && !job.nextRun.isAfter(now)) due.add(job);
+        }
+        for (Job job : due) {
+            runJob(job);
+            job.nextRun = nextRun(job, ZonedDateTime.now());
+            log.info("Next run of {} at {}", job.path.getFileName(), job.nextRun);
+        }
+    }
+
+    private void runJob(Job job) {
+        long start = System.currentTimeMillis();
+        log.info("Scheduled run of {}", job.path.getFileName());
+        try {
+            if (job.session == null) {
+                job.session = new BrowserSession(job.config);
+                job.session.start();
+                job.accounts = new AccountPool(job.config);
+            }
+            Crawler.runWithSession(job.config, job.session, job.accounts);
+            log.info("Run of {} finished in {} ms", job.path.getFileName(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Run of {} failed", job.path.getFileName(), e);
+            // Start from a fresh browser next time
+            closeSession(job);
+        }
+    }
+
+    private ZonedDateTime nextRun(Job job, ZonedDateTime after) {
+        if (job.cron != null) return job.cron.next(after);
+        Config.Schedule schedule = job.config.getSchedule();
+        long interval = schedule != null && schedule.getIntervalMs() > 0 ? schedule.getIntervalMs() : defaultIntervalMs;
+        return after.plus(Duration.ofMillis(interval));
+    }
+
+    private static boolean isConfigFile(Path path) {
+        String name = path.toString();
+        return (name.endsWith(".yaml") || name.endsWith(".yml")) && !Crawler.isExcluded(path);
+    }
+
+    private void closeSession(Job job) {
+        if (job.session == null) return;
+        try {
+            job.session.close();
+        } catch (Exception e) {
+            log.warn("Failed to close browser session for {}: {}", job.path.getFileName(), e.getMessage());
+        }
+        job.session = null;
+        job.accounts = null;
+    }
+
+    @Override
+    public void close() {
+        jobs.values().forEach(this::closeSession);
+    }
+}
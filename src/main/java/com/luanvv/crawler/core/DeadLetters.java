@@ -0,0 +1,149 @@
+package com.luanvv.crawler.core;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+
+// One JSON line per thing that failed after retries: a detail page, a single field, or an asset download.
+// `recrawl` reads the file back and repeats only those.
+@Slf4j
+public class DeadLetters implements AutoCloseable {
+    public static final String LIST = "list";
+    public static final String DETAIL = "detail";
+    public static final String ASSET = "asset";
+    // error of entries that did not fail but were postponed by the run budget
+    public static final String DEFERRED = "deferred";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+        .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    // field is null when the whole page failed. For list pages url is where the list starts and pageNumber the page
+    // within it. For assets url is the image and page, when known, the page it was found on.
+    public record Entry(String time, String kind, String crawlerId, String url, String parentId, Integer pageNumber,
+                        String field, String path, String error, String message, String page) {
+
+        // Where something is being extracted; failures copy it and add what went wrong
+        public static Entry of(String kind, Config.CrawlerConfig crawlerCfg, String url, String parentId,
+                               Integer pageNumber) {
+            return new Entry(null, kind, crawlerCfg.getId(), url, parentId, pageNumber, null, null, null, null, null);
+        }
+
+        // The same place, narrowed to one field
+        public Entry withField(String field) {
+            return new Entry(time, kind, crawlerId, url, parentId, pageNumber, field, path, error, message, page);
+        }
+
+        public Entry failed(String field, Throwable error) {
+            return new Entry(Instant.now().toString(), kind, crawlerId, url, parentId, pageNumber, field, path,
+                error.getClass().getName(), error.getMessage(), page);
+        }
+
+        // An image found here that failed once its file name was known, so it can be fetched again on its own
+        public Entry failedAsset(String imageUrl, String assetPath, Throwable error) {
+            return new Entry(Instant.now().toString(), ASSET, crawlerId, imageUrl, parentId, pageNumber, field,
+                assetPath, error.getClass().getName(), error.getMessage(), url);
+        }
+
+        public Entry deferred(String reason) {
+            return new Entry(Instant.now().toString(), kind, crawlerId, url, parentId, pageNumber, null, path,
+                DEFERRED, reason, page);
+        }
+    }
+
+    private final Path path;
+    private final BufferedWriter writer;
+    private final AtomicLong count = new AtomicLong();
+
+    private DeadLetters(Path path, boolean append) throws IOException {
+        this.path = path;
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        // A run repeats everything it failed before, so it starts the file over. A run resumed after the budget
+        // stopped the last one does not go over those pages again, so it adds to their failures instead.
+        this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+            append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    // Returns null when output.deadLetters is blank
+    public static DeadLetters open(Config config) throws IOException {
+        return open(config, false);
+    }
+
+    public static DeadLetters open(Config config, boolean append) throws IOException {
+        Path path = path(config);
+        if (path == null) return null;
+        if (append && Files.exists(path)) log.info("Continuing the failures of the earlier run in {}", path);
+        return new DeadLetters(path, append);
+    }
+
+    public static Path path(Config config) {
+        String name = config.getOutput().getDeadLetters();
+        if (name == null || name.isBlank()) return null;
+        return Paths.get(config.getOutput().getDir()).resolve(name);
+    }
+
+    public static Entry asset(Extractor.AssetTask task, Throwable error) {
+        return asset(task.url().toString(), task.path().toString(), error);
+    }
+
+    public static Entry deferredAsset(Extractor.AssetTask task, String reason) {
+        return new Entry(Instant.now().toString(), ASSET, null, task.url().toString(), null, null, null,
+            task.path().toString(), DEFERRED, reason, null);
+    }
+
+    public static Entry asset(String url, String path, Throwable error) {
+        return new Entry(Instant.now().toString(), ASSET, null, url, null, null, null, path,
+            error.getClass().getName(), error.getMessage(), null);
+    }
+
+    public static List<Entry> read(Path path) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) continue;
+            try {
+                entries.add(MAPPER.readValue(line, Entry.class));
+            } catch (IOException e) {
+                log.warn("Skipping unreadable dead letter: {}", line);
+            }
+        }
+        return entries;
+    }
+
+    public synchronized void add(Entry entry) {
+        try {
+            writer.write(MAPPER.writeValueAsString(entry));
+            writer.newLine();
+            writer.flush();
+            count.incrementAndGet();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public long count() {
+        return count.get();
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+        if (count.get() > 0) log.warn("{} failures written to {}; run `recrawl` to retry them", count.get(), path);
+    }
+}
@@ -1,9 +1,14 @@
 package com.luanvv.crawler.core;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.luanvv.crawler.jfr.NavigateEvent;
 import com.microsoft.playwright.Page;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -14,12 +19,16 @@ public class DetailCrawler {
     private final Retryer retryer;
     private final Extractor extractor;
     private final LoginManager loginManager;
+    // Where links to child crawlers go; without one they are logged and dropped
+    @Setter private CrawlGraph.ChildSink childSink;
+    // The crawler's own rate limit, taken together with the account's
+    @Setter private RateLimiter crawlerLimiter;
 
-    public void crawl(Page page, Config.CrawlerConfig crawlerCfg, OutputWriters writers, String url) throws Exception {
+    public void crawl(Page page, Config.CrawlerConfig crawlerCfg, RecordSink writers, String url) throws Exception {
         crawl(page, crawlerCfg, writers, url, null);
     }
 
-    public void crawl(Page page, Config.CrawlerConfig crawlerCfg, OutputWriters writers, String url, String uniqueId) throws Exception {
+    public void crawl(Page page, Config.CrawlerConfig crawlerCfg, RecordSink writers, String url, String uniqueId) throws Exception {
         String detailUrl = url;
         
         // If no URL provided and crawler has a URL, use it
@@ -34,12 +43,25 @@ public class DetailCrawler {
 
         final String navigateUrl = detailUrl;
         limiter.acquire();
+        if (crawlerLimiter != null) crawlerLimiter.acquire();
         log.info("Navigate detail: {}", navigateUrl);
         
+        AtomicReference<JsonNode> response = new AtomicReference<>();
         retryer.runWithRetry("navigate-detail", () -> {
+            NavigateEvent event = NavigateEvent.start();
             try {
-                page.navigate(navigateUrl);
+                if (XhrSource.isXhr(crawlerCfg)) {
+                    response.set(XhrSource.capture(page, crawlerCfg, () -> page.navigate(navigateUrl)));
+                } else {
+                    page.navigate(navigateUrl);
+                }
                 page.waitForLoadState();
+                if (event != null) {
+                    event.kind = "detail";
+                    event.crawler = crawlerCfg.getId();
+                    event.url = navigateUrl;
+                    event.commit();
+                }
             } catch (Exception e) {
                 if (config.getRetries() != null && config.getRetries().isReloginOnFail()) {
                     loginManager.login(page);
@@ -56,17 +78,54 @@ public class DetailCrawler {
         }
         
         // Extract all fields using the standardized method
-        Map<String, Object> extractedFields = extractor.extract(page, crawlerCfg);
+        DeadLetters.Entry context = DeadLetters.Entry.of(DeadLetters.DETAIL, crawlerCfg, navigateUrl, uniqueId, null);
+        Map<String, Object> extractedFields = XhrSource.isXhr(crawlerCfg)
+            ? extractor.extract(page, XhrSource.root(response.get(), crawlerCfg), crawlerCfg, context)
+            : extractor.extract(page, crawlerCfg, context);
         record.putAll(extractedFields);
 
         // Generate filename
         String filename;
-        if (uniqueId != null) {
+        String id;
+        if (!CrawlGraph.isRoot(config, crawlerCfg)) {
+            // Reached through `children`: one parent links to many of these pages, so each needs its own id
+            id = ownId(crawlerCfg, record, navigateUrl);
+            filename = "detail_" + crawlerCfg.getId() + "_" + id;
+        } else if (uniqueId != null) {
             filename = "detail_" + crawlerCfg.getId() + "_" + uniqueId;
+            id = uniqueId;
         } else {
             filename = UrlUtils.sanitizeForFilename(navigateUrl);
+            id = filename;
         }
         
-        writers.writeForUrl(filename, record);
+        writers.write(crawlerCfg, filename, id, record);
+
+        List<CrawlGraph.Edge> children = XhrSource.isXhr(crawlerCfg)
+            ? CrawlGraph.edges(config, crawlerCfg, XhrSource.root(response.get(), crawlerCfg))
+            : CrawlGraph.edges(config, crawlerCfg, page.locator(rootSelector(crawlerCfg)).first(), page.url());
+        if (children.isEmpty()) return;
+        if (childSink == null) {
+            log.warn("Detail page {} links to {} child pages, which are only followed by the crawl pipeline",
+                navigateUrl, children.size());
+            return;
+        }
+        for (CrawlGraph.Edge child : children) {
+            childSink.submit(child.crawler(), child.url(), id);
+        }
+    }
+
+    private static String ownId(Config.CrawlerConfig crawlerCfg, Map<String, Object> record, String url) {
+        String key = crawlerCfg.getProperties() != null ? crawlerCfg.getProperties().getUniqueKey() : null;
+        Object value = key != null ? record.get(key) : null;
+        if (value != null && !value.toString().isBlank()) {
+            return UrlUtils.sanitizeForFilename(value.toString());
+        }
+        return UrlUtils.sanitizeForFilename(url);
+    }
+
+    private static String rootSelector(Config.CrawlerConfig crawlerCfg) {
+        String root = crawlerCfg.getRootSelector();
+        return root != null && !root.isBlank() ? root : "html";
     }
 }
\ No newline at end of file
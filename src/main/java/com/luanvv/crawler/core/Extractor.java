@@ -1,41 +1,84 @@
 package com.luanvv.crawler.core;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.luanvv.crawler.jfr.FieldExtractEvent;
+import com.luanvv.crawler.jfr.ImageDownloadEvent;
+import com.luanvv.crawler.jfr.PreActionEvent;
 import com.microsoft.playwright.Locator;
 import com.microsoft.playwright.Page;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
 import java.net.URL;
+import java.net.URLConnection;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.ExecutorService;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class Extractor {
+    private static final int DOWNLOAD_TIMEOUT_MS = 60000;
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-\\d+/(\\d+|\\*)");
+
     private final Path imageDir;
     private final Path rootDir;
-    private final ExecutorService executor;
+    private final AssetSink assetSink;
     private final Config config;
+    private final Set<Path> queuedAssets = ConcurrentHashMap.newKeySet();
+    private final ImageVariants variants;
+    private final AssetManifest manifest;
+    @Setter private DeadLetters deadLetters;
+
+    public record AssetTask(URL url, Path path) {
+        @Override
+        public String toString() {
+            return "asset " + url;
+        }
+    }
+
+    public record Download(long length, String sha256) {
+        static Download of(Path path) throws IOException {
+            return new Download(Files.size(path), AssetManifest.sha256(path));
+        }
+    }
+
+    public interface AssetSink {
+        void submit(AssetTask task) throws Exception;
+    }
 
-    public Extractor(Config config, String outputDir, ExecutorService executor) throws IOException {
+    public Extractor(Config config, String outputDir, AssetSink assetSink) throws IOException {
         this.config = config;
-        this.executor = executor;
+        this.assetSink = assetSink;
+        this.variants = ImageVariants.of(config);
         this.rootDir = Paths.get(outputDir);
         this.imageDir = rootDir.resolve("images");
         Files.createDirectories(imageDir);
+        this.manifest = AssetManifest.open(config.getOutput(), rootDir);
     }
 
     public Map<String, Object> extract(Page page, Config.CrawlerConfig crawlerCfg) {
+        return extract(page, crawlerCfg, null);
+    }
+
+    // context says where the page came from, so failed fields can be dead-lettered and re-crawled
+    public Map<String, Object> extract(Page page, Config.CrawlerConfig crawlerCfg, DeadLetters.Entry context) {
         Map<String, Object> out = new HashMap<>();
         if (crawlerCfg.getFields() == null) return out;
         
@@ -49,25 +92,116 @@ public class Extractor {
                 // Execute pre-actions if any
                 if (f.getPreActions() != null) {
                     for (Config.PreAction action : f.getPreActions()) {
+                        PreActionEvent event = PreActionEvent.start();
                         try {
                             page.evaluate(action.getScript());
                             Thread.sleep(500); // Small delay after action
                         } catch (Exception e) {
                             log.warn("Pre-action '{}' failed: {}", action.getId(), e.getMessage());
                         }
+                        if (event != null) {
+                            event.fieldId = f.getId();
+                            event.actionId = action.getId();
+                            event.commit();
+                        }
                     }
                 }
+            } catch (Exception e) {
+                log.warn("Pre-actions for field '{}' failed: {}", f.getName(), e.toString());
+            }
+
+            // Timed separately from pre-actions so their fixed sleeps don't hide slow selectors
+            FieldExtractEvent event = FieldExtractEvent.start();
+            try {
+                Object v = extractFromLocator(rootLocator, f, context != null ? context.withField(f.getId()) : null);
+                out.put(f.getName(), v);
+                putVariants(out, f, v);
+            } catch (Exception e) {
+                log.warn("Field '{}' failed: {}", f.getName(), e.toString());
+                out.put(f.getName(), null);
+                if (context != null) deadLetter(context.failed(f.getId(), e));
+                if (event != null) event.failed = true;
+            }
+            if (event != null) {
+                event.crawler = crawlerCfg.getId();
+                event.fieldId = f.getId();
+                event.fieldType = f.getType();
+                event.commit();
+            }
+        }
+        return out;
+    }
 
-                Object v = extractFromLocator(rootLocator, f);
+    // Same record shape as extract(), but from a JSON node captured by XhrSource
+    public Map<String, Object> extract(Page page, JsonNode root, Config.CrawlerConfig crawlerCfg,
+                                       DeadLetters.Entry context) {
+        Map<String, Object> out = new HashMap<>();
+        if (crawlerCfg.getFields() == null) return out;
+        for (Config.Field f : crawlerCfg.getFields()) {
+            FieldExtractEvent event = FieldExtractEvent.start();
+            try {
+                Object v = extractFromJson(page, root, f, context != null ? context.withField(f.getId()) : null);
                 out.put(f.getName(), v);
+                putVariants(out, f, v);
             } catch (Exception e) {
                 log.warn("Field '{}' failed: {}", f.getName(), e.toString());
                 out.put(f.getName(), null);
+                if (context != null) deadLetter(context.failed(f.getId(), e));
+                if (event != null) event.failed = true;
+            }
+            if (event != null) {
+                event.crawler = crawlerCfg.getId();
+                event.fieldId = f.getId();
+                event.fieldType = f.getType();
+                event.commit();
             }
         }
         return out;
     }
 
+    public Object extractFromJson(Page page, JsonNode root, Config.Field field) {
+        return extractFromJson(page, root, field, null);
+    }
+
+    // context, narrowed to the field, is where failed image downloads are dead-lettered
+    public Object extractFromJson(Page page, JsonNode root, Config.Field field, DeadLetters.Entry context) {
+        String path = field.getJsonPath() != null ? field.getJsonPath() : field.getName();
+        JsonNode node = XhrSource.at(root, path);
+        if (node.isMissingNode() || node.isNull()) return null;
+        String type = field.getType() != null ? field.getType() : "text";
+        if ("image".equals(type)) {
+            if (node.isArray()) {
+                List<String> paths = new java.util.ArrayList<>();
+                for (JsonNode item : node) {
+                    if (item.isTextual() && !item.textValue().isBlank()) {
+                        String stored = downloadImage(page, item.textValue(), context);
+                        if (stored != null) paths.add(stored);
+                    }
+                }
+                return paths;
+            }
+            String src = node.asText();
+            return src.isBlank() ? null : downloadImage(page, src, context);
+        }
+        if ("html".equals(type)) {
+            return extractAndDownloadImagesFromHtml(page, node.asText(), context);
+        }
+        if ("checkbox".equals(type) || "boolean".equals(type)) {
+            return node.isTextual() ? Boolean.parseBoolean(node.textValue()) || "1".equals(node.textValue()) : node.asBoolean();
+        }
+        return XhrSource.toValue(node);
+    }
+
+    public void deadLetter(DeadLetters.Entry entry) {
+        if (deadLetters != null) deadLetters.add(entry);
+    }
+
+    // Adds "<field>_variants" next to an image field when resized variants are configured
+    public void putVariants(Map<String, Object> record, Config.Field field, Object value) {
+        if (variants == null || value == null || !"image".equals(field.getType())) return;
+        record.put(field.getName() + "_variants", variants.pathsForValue(value));
+    }
+
     private String buildSelector(String rootSelector, String fieldSelector) {
         if (rootSelector == null || rootSelector.isBlank()) {
             return fieldSelector;
@@ -79,64 +213,64 @@ public class Extractor {
     }
 
     public Object extractFromLocator(Locator baseLocator, Config.Field field) {
-        try {
-            // Handle multiple images case first
-            if ("image".equals(field.getType()) && field.isMultiple()) {
-                return baseLocator.locator(field.getSelector()).all().stream()
-                        .map(l -> {
-                            String src = l.getAttribute("src");
-                            if (src != null && !src.isBlank()) {
-                                return downloadImage(baseLocator.page(), src);
-                            }
-                            return null;
-                        })
-                        .filter(Objects::nonNull)
-                        .collect(Collectors.toList());
-            }
-            
-            var fieldLocator = baseLocator.locator(field.getSelector()).first();
-            
-            return switch (field.getType()) {
-                case "text" -> {
-                    String tagName = fieldLocator.evaluate("e => e.tagName").toString().toLowerCase();
-                    if ("input".equals(tagName) || "textarea".equals(tagName)) {
-                        yield fieldLocator.inputValue();
-                    }
-                    yield fieldLocator.innerText().trim();
-                }
-                case "html" -> {
-                    String htmlContent;
-                    String tagName = fieldLocator.evaluate("e => e.tagName").toString().toLowerCase();
-                    if ("textarea".equals(tagName)) {
-                        htmlContent = fieldLocator.inputValue();
-                    } else {
-                        htmlContent = fieldLocator.innerHTML();
-                    }
-                    
-                    // Extract and download images from HTML content
-                    htmlContent = extractAndDownloadImagesFromHtml(baseLocator.page(), htmlContent);
-                    yield htmlContent;
-                }
-                case "select" -> {
-                    Locator sel = fieldLocator.locator("option:checked");
-                    yield sel.count() > 0 ? sel.first().innerText().trim() : "";
+        return extractFromLocator(baseLocator, field, null);
+    }
+
+    // Throws when the field can't be read; callers record null and dead-letter it
+    public Object extractFromLocator(Locator baseLocator, Config.Field field, DeadLetters.Entry context) {
+        // Handle multiple images case first
+        if ("image".equals(field.getType()) && field.isMultiple()) {
+            return baseLocator.locator(field.getSelector()).all().stream()
+                    .map(l -> {
+                        String src = l.getAttribute("src");
+                        if (src != null && !src.isBlank()) {
+                            return downloadImage(baseLocator.page(), src, context);
+                        }
+                        return null;
+                    })
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+        }
+        
+        var fieldLocator = baseLocator.locator(field.getSelector()).first();
+        
+        return switch (field.getType()) {
+            case "text" -> {
+                String tagName = fieldLocator.evaluate("e => e.tagName").toString().toLowerCase();
+                if ("input".equals(tagName) || "textarea".equals(tagName)) {
+                    yield fieldLocator.inputValue();
                 }
-                case "checkbox" -> fieldLocator.isChecked();
-                case "boolean" -> getBooleanFromLocator(fieldLocator, field.getValues());
-                case "image" -> {
-                    String src = fieldLocator.getAttribute("src");
-                    yield src != null && !src.isBlank() ? downloadImage(baseLocator.page(), src) : null;
+                yield fieldLocator.innerText().trim();
+            }
+            case "html" -> {
+                String htmlContent;
+                String tagName = fieldLocator.evaluate("e => e.tagName").toString().toLowerCase();
+                if ("textarea".equals(tagName)) {
+                    htmlContent = fieldLocator.inputValue();
+                } else {
+                    htmlContent = fieldLocator.innerHTML();
                 }
-                case "label" -> fieldLocator.innerText().trim();
-                default -> fieldLocator.innerText().trim();
-            };
-        } catch (Exception e) {
-            log.warn("Failed to extract field '{}': {}", field.getName(), e.getMessage());
-            return null;
-        }
+                
+                // Extract and download images from HTML content
+                htmlContent = extractAndDownloadImagesFromHtml(baseLocator.page(), htmlContent, context);
+                yield htmlContent;
+            }
+            case "select" -> {
+                Locator sel = fieldLocator.locator("option:checked");
+                yield sel.count() > 0 ? sel.first().innerText().trim() : "";
+            }
+            case "checkbox" -> fieldLocator.isChecked();
+            case "boolean" -> getBooleanFromLocator(fieldLocator, field.getValues());
+            case "image" -> {
+                String src = fieldLocator.getAttribute("src");
+                yield src != null && !src.isBlank() ? downloadImage(baseLocator.page(), src, context) : null;
+            }
+            case "label" -> fieldLocator.innerText().trim();
+            default -> fieldLocator.innerText().trim();
+        };
     }
 
-    private String extractAndDownloadImagesFromHtml(Page page, String htmlContent) {
+    private String extractAndDownloadImagesFromHtml(Page page, String htmlContent, DeadLetters.Entry context) {
         if (htmlContent == null || htmlContent.isBlank()) {
             return htmlContent;
         }
@@ -150,7 +284,7 @@ public class Extractor {
             }
             
             try {
-                String downloadedPath = downloadImage(page, imageSrc);
+                String downloadedPath = downloadImage(page, imageSrc, context);
                 if (downloadedPath != null) {
                     log.debug("Downloaded image from HTML: '{}' to '{}'", imageSrc, downloadedPath);
                 }
@@ -204,7 +338,8 @@ public class Extractor {
         return false;
     }
 
-    private String downloadImage(Page page, String imageUrl) {
+    private String downloadImage(Page page, String imageUrl, DeadLetters.Entry context) {
+        Path imagePath = null;
         try {
             // Make URL absolute if needed
             URL url = UrlUtils.toAbsolute(page.url(), imageUrl).toURL();
@@ -214,7 +349,7 @@ public class Extractor {
                 // For /upload paths, preserve the directory structure
                 String relativePath = imageUrl.substring(1); // Remove leading slash
                 String cleanPath = UrlUtils.urlDecode(relativePath);
-                Path imagePath = rootDir.resolve(cleanPath);
+                imagePath = rootDir.resolve(cleanPath);
                 
                 // Create parent directories
                 Files.createDirectories(imagePath.getParent());
@@ -235,38 +370,152 @@ public class Extractor {
                 Path pageImageDir = imageDir.resolve(pageUrlHash);
                 Files.createDirectories(pageImageDir);
                 
-                Path imagePath = pageImageDir.resolve(cleanFileName);
+                imagePath = pageImageDir.resolve(cleanFileName);
 
                 storeImage(imagePath, url);
                 return "images/" + pageUrlHash + "/" + fileName; // Return relative path with hash subdirectory
             }
         } catch (Exception e) {
             log.warn("Failed to download image: {}", imageUrl, e);
+            if (context == null) {
+                deadLetter(DeadLetters.asset(imageUrl, imagePath != null ? imagePath.toString() : null, e));
+            } else if (imagePath != null) {
+                deadLetter(context.failedAsset(imageUrl, imagePath.toString(), e));
+            } else {
+                // No file name yet, so only crawling the page again can retry it
+                deadLetter(context.failed(context.field(), e));
+            }
             return null; // Return null instead of throwing to allow processing to continue
         }
     }
 
-    private void storeImage(Path imagePath, URL url) throws IOException {
-        // Download only if file doesn't exist
-        if (!Files.exists(imagePath)) {
-            if (config.getParallelism() > 0) {
-                executor.submit(() -> {
-                    log.info("Downloading image: {} to path: {}", url, imagePath);
-                    try (InputStream in = url.openStream()) {
-                        Files.copy(in, imagePath, StandardCopyOption.REPLACE_EXISTING);
-                    } catch (IOException e) {
-                        log.warn("Failed to download image: {}", url, e);
-                        throw new RuntimeException(e);
-                    }
-                    return null;
-                });
+    private void storeImage(Path imagePath, URL url) throws Exception {
+        // Images are fetched outside the browser, so a replay would otherwise hit the live site for them
+        if (HarArchive.isReplaying(config) && !Files.exists(imagePath)) {
+            log.debug("Replaying, not downloading missing image {}", url);
+            return;
+        }
+        // Download only if file (or one of its variants) doesn't exist and nobody queued it yet
+        boolean needed = !Files.exists(imagePath) || (variants != null && variants.isMissing(imagePath));
+        if (!needed || !queueAsset(imagePath)) {
+            return;
+        }
+        if (assetSink != null) {
+            assetSink.submit(new AssetTask(url, imagePath));
+        } else {
+            fetch(new AssetTask(url, imagePath));
+            if (variants != null) variants.process(imagePath);
+        }
+    }
+
+    // False when this run already queued the file; two downloads into one .part would corrupt it
+    public boolean queueAsset(Path path) {
+        return queuedAssets.add(path.toAbsolutePath().normalize());
+    }
+
+    // Re-queues assets that an earlier run left unfinished or that no longer match the manifest
+    public int verifyAssets() throws Exception {
+        if (manifest == null || HarArchive.isReplaying(config)) return 0;
+        List<AssetTask> tasks = manifest.verify(config.getOutput().getVerifyAssets());
+        for (AssetTask task : tasks) {
+            if (!queueAsset(task.path())) continue;
+            if (assetSink != null) {
+                assetSink.submit(task);
             } else {
-                try (InputStream in = url.openStream()) {
-                    Files.copy(in, imagePath, StandardCopyOption.REPLACE_EXISTING);
+                fetch(task);
+                if (variants != null) variants.process(task.path());
+            }
+        }
+        return tasks.size();
+    }
+
+    // Downloads unless an earlier run already did. Files only get their final name once complete, so one that
+    // exists is whole; verifyAssets() deletes the ones that were damaged afterwards.
+    // Returns null when there was nothing to download
+    public Download fetch(AssetTask task) throws IOException {
+        if (Files.exists(task.path())) return null;
+        if (manifest != null) manifest.started(task);
+        Download download = download(task);
+        if (manifest != null) manifest.done(task, download);
+        return download;
+    }
+
+    // Writes to <file>.part and renames it into place when the length matches. A .part left by an interrupted
+    // download is continued with a Range request; servers that ignore the range send the whole file again.
+    public static Download download(AssetTask task) throws IOException {
+        log.info("Downloading image: {} to path: {}", task.url(), task.path());
+        ImageDownloadEvent event = ImageDownloadEvent.start();
+        Path part = task.path().resolveSibling(task.path().getFileName() + ".part");
+        long offset = Files.exists(part) ? Files.size(part) : 0;
+
+        URLConnection connection = task.url().openConnection();
+        connection.setConnectTimeout(DOWNLOAD_TIMEOUT_MS);
+        connection.setReadTimeout(DOWNLOAD_TIMEOUT_MS);
+        boolean resume = false;
+        long expected = -1;
+        if (connection instanceof HttpURLConnection http) {
+            if (offset > 0) http.setRequestProperty("Range", "bytes=" + offset + "-");
+            int status = http.getResponseCode();
+            if (status == HttpURLConnection.HTTP_PARTIAL && offset > 0) {
+                long[] range = contentRange(http.getHeaderField("Content-Range"));
+                resume = range != null && range[0] == offset;
+                if (!resume) {
+                    http.disconnect();
+                    Files.delete(part);
+                    return download(task);
                 }
+                expected = range[1];
+            } else if (status == 416 && offset > 0) {
+                // Range not satisfiable: the part is stale or already complete, and only a fresh copy can tell
+                http.disconnect();
+                Files.delete(part);
+                return download(task);
+            } else if (status >= 400) {
+                http.disconnect();
+                throw new IOException("HTTP " + status + " downloading " + task.url());
+            }
+        }
+        if (!resume) {
+            offset = 0;
+            expected = connection.getContentLengthLong();
+        } else if (expected < 0 && connection.getContentLengthLong() >= 0) {
+            expected = offset + connection.getContentLengthLong();
+        }
+
+        MessageDigest digest = AssetManifest.newDigest();
+        if (resume) {
+            try (InputStream in = new DigestInputStream(Files.newInputStream(part), digest)) {
+                in.transferTo(OutputStream.nullOutputStream());
             }
-            log.info("Downloaded image: {}", imagePath);
+            log.info("Resuming {} at byte {}", task.url(), offset);
         }
+        long bytes;
+        try (InputStream in = new DigestInputStream(connection.getInputStream(), digest);
+             OutputStream out = Files.newOutputStream(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                 resume ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING)) {
+            bytes = in.transferTo(out);
+        }
+        long length = offset + bytes;
+        if (expected >= 0 && length != expected) {
+            // Kept so the next attempt resumes instead of starting over
+            throw new IOException("Download of " + task.url() + " stopped at " + length + " of " + expected + " bytes");
+        }
+        Files.move(part, task.path(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (event != null) {
+            event.url = task.url().toString();
+            event.bytes = bytes;
+            event.commit();
+        }
+        log.info("Downloaded image: {}", task.path());
+        return new Download(length, HexFormat.of().formatHex(digest.digest()));
+    }
+
+    // "bytes 100-199/1000" -> {100, 1000}; total is -1 when the server sends "*"
+    private static long[] contentRange(String header) {
+        if (header == null) return null;
+        Matcher m = CONTENT_RANGE.matcher(header.trim());
+        if (!m.matches()) return null;
+        return new long[] {Long.parseLong(m.group(1)), "*".equals(m.group(2)) ? -1 : Long.parseLong(m.group(2))};
     }
 
     private String md5Hash(String input) {
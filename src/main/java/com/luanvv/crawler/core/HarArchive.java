@@ -0,0 +1,77 @@
+package com.luanvv.crawler.core;
+
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.options.HarMode;
+import com.microsoft.playwright.options.HarNotFound;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+
+// record: every browser context writes its traffic to <output>/<har.dir>/ when it closes.
+// replay: contexts answer from those archives instead of the site, with login and rate limiting turned off.
+@Slf4j
+public class HarArchive {
+    public static final String RECORD = "record";
+    public static final String REPLAY = "replay";
+
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    public static boolean isRecording(Config config) {
+        return config.getHar() != null && RECORD.equalsIgnoreCase(config.getHar().getMode());
+    }
+
+    public static boolean isReplaying(Config config) {
+        return config.getHar() != null && REPLAY.equalsIgnoreCase(config.getHar().getMode());
+    }
+
+    public static Path dir(Config config) {
+        return Paths.get(config.getOutput().getDir(), config.getHar().getDir());
+    }
+
+    // Called before the context is created; Playwright only takes the record path as a context option
+    public static void configure(Config config, Browser.NewContextOptions options) {
+        if (!isRecording(config)) return;
+        try {
+            Path dir = Files.createDirectories(dir(config));
+            // Each context (workers, recycled contexts) gets its own file so none overwrites another
+            Path file = dir.resolve(LocalDateTime.now().format(STAMP) + "-" + SEQUENCE.incrementAndGet() + ".har.zip");
+            options.setRecordHarPath(file).setRecordHarMode(HarMode.FULL);
+            log.info("Recording traffic to {}", file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static void route(Config config, BrowserContext context) {
+        if (!isReplaying(config)) return;
+        Path dir = dir(config);
+        List<Path> archives;
+        try (var stream = Files.list(dir)) {
+            archives = stream.filter(p -> p.toString().endsWith(".har") || p.toString().endsWith(".har.zip"))
+                .sorted()
+                .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No HAR archives to replay in " + dir, e);
+        }
+        if (config.getHar().isOffline()) {
+            // Routes are tried newest first, so this only sees requests no archive could answer
+            context.route("**/*", route -> {
+                log.debug("Not in any archive, aborting: {}", route.request().url());
+                route.abort();
+            });
+        }
+        for (Path archive : archives) {
+            context.routeFromHAR(archive, new BrowserContext.RouteFromHAROptions().setNotFound(HarNotFound.FALLBACK));
+        }
+        log.info("Replaying {} archives from {}{}", archives.size(), dir, config.getHar().isOffline() ? " (offline)" : "");
+    }
+}
@@ -0,0 +1,151 @@
+package com.luanvv.crawler.core;
+
+import com.luanvv.crawler.jfr.ImageVariantEvent;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import lombok.extern.slf4j.Slf4j;
+
+// Resized, re-encoded copies of downloaded images: photo.png -> photo_w160.jpg, photo_w480.jpg next to the original
+@Slf4j
+public class ImageVariants {
+    private final List<Integer> widths;
+    private final String format;
+    private final float quality;
+
+    private ImageVariants(Config.ImageVariants cfg) {
+        this.widths = cfg.getWidths().stream().filter(w -> w > 0).sorted().distinct().toList();
+        this.quality = (float) Math.max(0.05, Math.min(1.0, cfg.getQuality()));
+        String wanted = cfg.getFormat().toLowerCase();
+        if (ImageIO.getImageWritersByFormatName(wanted).hasNext()) {
+            this.format = wanted;
+        } else {
+            // The JDK ships no WebP encoder; one is picked up automatically if an ImageIO plugin is on the classpath
+            log.warn("No ImageIO writer for '{}', writing variants as jpg", wanted);
+            this.format = "jpg";
+        }
+    }
+
+    // Returns null when variants are turned off
+    public static ImageVariants of(Config config) {
+        Config.ImageVariants cfg = config.getOutput() != null ? config.getOutput().getVariants() : null;
+        if (cfg == null || !cfg.isEnabled() || cfg.getWidths() == null || cfg.getWidths().isEmpty()) return null;
+        return new ImageVariants(cfg);
+    }
+
+    // Width -> relative path, derived from the original's relative path so records can be written before processing
+    public Map<String, String> pathsFor(String original) {
+        Map<String, String> paths = new LinkedHashMap<>();
+        for (int width : widths) {
+            paths.put(String.valueOf(width), variantName(original, width));
+        }
+        return paths;
+    }
+
+    // For an image field value (a path or a list of paths), the matching variant paths
+    public Object pathsForValue(Object value) {
+        if (value instanceof String path) return pathsFor(path);
+        if (value instanceof List<?> list) {
+            List<Map<String, String>> all = new ArrayList<>();
+            for (Object item : list) {
+                if (item instanceof String path) all.add(pathsFor(path));
+            }
+            return all;
+        }
+        return null;
+    }
+
+    public boolean isMissing(Path original) {
+        for (int width : widths) {
+            if (!Files.exists(variantPath(original, width))) return true;
+        }
+        return false;
+    }
+
+    public void process(Path original) throws IOException {
+        if (!Files.exists(original) || !isMissing(original)) return;
+        ImageVariantEvent event = ImageVariantEvent.start();
+        BufferedImage source = ImageIO.read(original.toFile());
+        if (source == null) {
+            log.debug("Not an image ImageIO can read, skipping variants: {}", original);
+            return;
+        }
+        for (int width : widths) {
+            Path target = variantPath(original, width);
+            if (Files.exists(target)) continue;
+            // Never upscale: small originals are only re-encoded
+            int w = Math.min(width, source.getWidth());
+            int h = Math.max(1, Math.round((float) source.getHeight() * w / source.getWidth()));
+            write(resize(source, w, h), target);
+        }
+        if (event != null) {
+            event.path = original.toString();
+            event.variants = widths.size();
+            event.commit();
+        }
+        log.debug("Wrote {} variants of {}", widths.size(), original);
+    }
+
+    private static BufferedImage resize(BufferedImage source, int width, int height) {
+        // RGB without alpha so the result can always be written as JPEG; transparent areas become white
+        BufferedImage out = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = out.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return out;
+    }
+
+    private void write(BufferedImage image, Path target) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+        ImageWriter writer = writers.next();
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(tmp.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                if (param.getCompressionType() == null && param.getCompressionTypes().length > 0) {
+                    param.setCompressionType(param.getCompressionTypes()[0]);
+                }
+                param.setCompressionQuality(quality);
+            }
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path variantPath(Path original, int width) {
+        return original.resolveSibling(variantName(original.getFileName().toString(), width));
+    }
+
+    private String variantName(String original, int width) {
+        int slash = original.lastIndexOf('/');
+        int dot = original.lastIndexOf('.');
+        String base = dot > slash ? original.substring(0, dot) : original;
+        return base + "_w" + width + "." + format;
+    }
+}
@@ -1,95 +1,365 @@
 package com.luanvv.crawler.core;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.luanvv.crawler.core.Config.CrawlerConfig;
+import com.luanvv.crawler.jfr.FieldExtractEvent;
+import com.luanvv.crawler.jfr.NavigateEvent;
 import com.microsoft.playwright.Locator;
 import com.microsoft.playwright.Page;
+import com.microsoft.playwright.options.WaitUntilState;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 @RequiredArgsConstructor
 public class ListCrawler {
+    private static final String SEEN_ATTRIBUTE = "data-crawler-seen";
+    // Scrolls by most of a viewport rather than to the end, so virtualized lists render every row on the way.
+    // Returns whether the bottom was already reached before this step.
+    private static final String SCROLL_JS = """
+        container => {
+          const c = (container && document.querySelector(container)) || document.scrollingElement;
+          const atBottom = c.scrollTop + c.clientHeight >= c.scrollHeight - 2;
+          c.scrollBy(0, c.clientHeight * 0.9);
+          return atBottom;
+        }
+        """;
+
     private final Config config;
     private final RateLimiter limiter;
     private final Retryer retryer;
     private final Extractor extractor;
     private final LoginManager loginManager;
     private String baseUrl;
+    // Where the list being paginated starts; its dead letters point there so a re-crawl can click through again
+    private String listUrl;
+    // xhr crawlers: the JSON the current list page loaded its rows from
+    private JsonNode lastResponse;
+
+    public interface PageVisitor {
+        void visit(int pageNumber, String url) throws Exception;
+    }
+
+    public record ListRow(CrawlerConfig crawlerCfg, String uniqueId, Map<String, Object> record,
+                          CrawlerConfig detailCrawler, String detailUrl, List<CrawlGraph.Edge> children) {
+        @Override
+        public String toString() {
+            return "list row " + crawlerCfg.getId() + "/" + uniqueId;
+        }
+    }
+
+    public interface RowHandler {
+        void handle(ListRow row) throws Exception;
+    }
+
+    // When set, extracted rows are handed off instead of being written and detail-crawled inline
+    @Setter private RowHandler rowHandler;
+    // Checked before each list page; null never runs out
+    @Setter private RunBudget budget;
+    // Set when the budget stopped a scroll harvest before the end of its page
+    private boolean harvestCut;
+    // The crawler's own rate limit, taken together with the account's
+    @Setter private RateLimiter crawlerLimiter;
+    // Record id of the page that linked to this list, when it is crawled as a child
+    private String parentId;
+    // Set by a visitor that has seen enough pages
+    private boolean stopRequested;
+
+    public int crawl(BrowserSession session, Config.CrawlerConfig crawlerCfg, RecordSink writers) throws Exception {
+        return crawl(session, crawlerCfg, writers, crawlerCfg.getProperties().getStartPage());
+    }
+
+    // Returns the page to resume from when the budget stopped the crawl, 0 when the list ran out
+    public int crawl(BrowserSession session, Config.CrawlerConfig crawlerCfg, RecordSink writers, int startPage)
+        throws Exception {
+        return paginate(session, crawlerCfg, startPage, visitor(session, crawlerCfg, writers));
+    }
+
+    private static boolean isScroll(CrawlerConfig crawlerCfg) {
+        Config.Scroll scroll = crawlerCfg.getProperties() != null ? crawlerCfg.getProperties().getScroll() : null;
+        if (scroll == null || !scroll.isEnabled()) return false;
+        if (XhrSource.isXhr(crawlerCfg)) {
+            log.warn("Scroll mode is not supported for xhr crawler '{}', extracting the first response only",
+                crawlerCfg.getId());
+            return false;
+        }
+        return true;
+    }
 
-    public void crawl(Page page, Config.CrawlerConfig crawlerCfg, OutputWriters writers) throws Exception {
+    public int paginate(BrowserSession session, Config.CrawlerConfig crawlerCfg, PageVisitor visitor) throws Exception {
+        return paginate(session, crawlerCfg, crawlerCfg.getProperties().getStartPage(), visitor);
+    }
+
+    public int paginate(BrowserSession session, Config.CrawlerConfig crawlerCfg, int startPage, PageVisitor visitor)
+        throws Exception {
         if (crawlerCfg.getUrl() == null || crawlerCfg.getUrl().isBlank()) {
             log.info("Skipping crawler '{}' - no URL defined", crawlerCfg.getId());
-            return;
+            return 0;
+        }
+        return paginate(session, crawlerCfg, config.getBaseUrl() + crawlerCfg.getUrl(), startPage, visitor);
+    }
+
+    // A list reached through another crawler's link: starts at that URL and its rows carry the linking record's id
+    public int crawlFrom(BrowserSession session, CrawlerConfig crawlerCfg, RecordSink writers, String url,
+                         String parentId, int startPage) throws Exception {
+        this.parentId = parentId;
+        try {
+            return paginate(session, crawlerCfg, url, startPage, visitor(session, crawlerCfg, writers));
+        } finally {
+            this.parentId = null;
+        }
+    }
+
+    // Visits one page of a list again. Click pagination leaves every page on the list's first URL, so it clicks
+    // through from there instead of loading the page on its own.
+    public void crawlPage(BrowserSession session, CrawlerConfig crawlerCfg, RecordSink writers, String url,
+                          String parentId, int pageNumber) throws Exception {
+        this.parentId = parentId;
+        try {
+            PageVisitor visitor = visitor(session, crawlerCfg, writers);
+            int stoppedAt = paginate(session, crawlerCfg, url, pageNumber, (number, pageUrl) -> {
+                visitor.visit(number, pageUrl);
+                stopAfterPage();
+            });
+            if (stoppedAt == 0) {
+                log.warn("List '{}' at {} ended before page {}", crawlerCfg.getId(), url, pageNumber);
+            }
+        } finally {
+            this.parentId = null;
         }
+    }
+
+    private PageVisitor visitor(BrowserSession session, CrawlerConfig crawlerCfg, RecordSink writers) {
+        return isScroll(crawlerCfg)
+            ? (pageNumber, url) -> harvest(session.getPage(), crawlerCfg, writers, pageNumber)
+            : (pageNumber, url) -> extractPage(session.getPage(), crawlerCfg, writers, pageNumber);
+    }
 
-        baseUrl = config.getBaseUrl() + crawlerCfg.getUrl();
+    private int paginate(BrowserSession session, CrawlerConfig crawlerCfg, String startUrl, int startPage,
+                         PageVisitor visitor) throws Exception {
+        baseUrl = startUrl;
+        listUrl = startUrl;
         String currentPageText = "";
         int pageCount = 0;
-        int startPage = crawlerCfg.getProperties().getStartPage();
+        // A prefetched tab's XHR fires before anyone listens for it, so xhr crawlers load pages in place
+        boolean prefetch = crawlerCfg.getProperties().isPrefetch() && !XhrSource.isXhr(crawlerCfg);
+        boolean prefetched = false;
         while (true) {
             var startTime = System.currentTimeMillis();
             pageCount++;
-            limiter.acquire();
+            // Pages before startPage are only clicked through, so they go on regardless of the budget
+            if (pageCount >= startPage && budget != null && budget.isExhausted()) {
+                log.info("Run budget reached, stopping crawler '{}' before page {}", crawlerCfg.getId(), pageCount);
+                session.closePrefetchPage();
+                return pageCount;
+            }
+            // The previous page's rows are handed off, so this is a safe point to swap the page out.
+            // A recycle discards the prefetch tab, in which case the page is simply loaded again.
+            if (session.recycleIfNeeded()) {
+                prefetched = false;
+            }
 
             final String navigateUrl = baseUrl;
-            log.info("Navigate list page {}: {}", pageCount, navigateUrl);
+            if (prefetched) {
+                prefetched = swapInPrefetched(session, pageCount, navigateUrl);
+            }
+            Page page = session.getPage();
+            if (!prefetched) {
+                acquire();
+                log.info("Navigate list page {}: {}", pageCount, navigateUrl);
 
-            retryer.runWithRetry("navigate-list", () -> {
+                retryer.runWithRetry("navigate-list", () -> {
+                    NavigateEvent event = NavigateEvent.start();
+                    try {
+                        load(page, crawlerCfg, navigateUrl);
+                        if (event != null) {
+                            event.kind = "list";
+                            event.crawler = crawlerCfg.getId();
+                            event.url = navigateUrl;
+                            event.commit();
+                        }
+                    } catch (Exception e) {
+                        if (config.getRetries() != null && config.getRetries().isReloginOnFail()) {
+                            loginManager.login(page);
+                        }
+                        throw e;
+                    }
+                    return true;
+                });
+            }
+            // Check if we're on the same page (pagination detection)
+            if (pageCount >= startPage && crawlerCfg.getProperties() != null && crawlerCfg.getProperties().getCurrentPageSelector() != null) {
                 try {
-                    page.navigate(navigateUrl);
-                    page.waitForLoadState();
-                } catch (Exception e) {
-                    if (config.getRetries() != null && config.getRetries().isReloginOnFail()) {
-                        loginManager.login(page);
+                    String newPageText = page.locator(crawlerCfg.getProperties().getCurrentPageSelector()).first().innerText().trim();
+                    if (currentPageText.equals(newPageText) && pageCount > 1) {
+                        log.info("Same page detected, stopping pagination");
+                        break;
                     }
-                    throw e;
+                    currentPageText = newPageText;
+                } catch (Exception e) {
+                    log.warn("Could not read current page indicator: {}", e.getMessage());
                 }
-                return true;
-            });
+            }
+
+            // Start loading the next page in the background tab before this page's rows are processed
+            String nextUrl = prefetch ? startPrefetch(session, crawlerCfg, page) : null;
+            prefetched = nextUrl != null;
+
             // Skip pages until startPage
             if (pageCount < startPage) {
                 log.info("Skipping page {} (startPage={})", pageCount, startPage);
             } else {
-                // Check if we're on the same page (pagination detection)
-                if (crawlerCfg.getProperties() != null && crawlerCfg.getProperties().getCurrentPageSelector() != null) {
-                    try {
-                        String newPageText = page.locator(crawlerCfg.getProperties().getCurrentPageSelector()).first().innerText().trim();
-                        if (currentPageText.equals(newPageText) && pageCount > 1) {
-                            log.info("Same page detected, stopping pagination");
-                            break;
-                        }
-                        currentPageText = newPageText;
-                    } catch (Exception e) {
-                        log.warn("Could not read current page indicator: {}", e.getMessage());
-                    }
+                harvestCut = false;
+                stopRequested = false;
+                visitor.visit(pageCount, navigateUrl);
+                if (budget != null) budget.pageDone();
+                if (harvestCut) {
+                    session.closePrefetchPage();
+                    return pageCount;
                 }
-
-                // Extract items from current page
-                if (crawlerCfg.getProperties() != null && crawlerCfg.getProperties().getItemSelectors() != null) {
-                    String itemSelector = crawlerCfg.getProperties().getItemSelectors();
-                    if (crawlerCfg.getRootSelector() != null) {
-                        itemSelector = crawlerCfg.getRootSelector() + " " + itemSelector;
-                    }
-
-                    var items = page.locator(itemSelector).all();
-                    log.info("Found {} items on page {}", items.size(), pageCount);
-
-                    for (int index = 0; index < items.size(); index++) {
-                        var item = items.get(index);
-                        crawlItem(page, crawlerCfg, writers, item, index);
-                    }
-                    log.info("Completed crawling all {} items on page {}", items.size(), pageCount);
+                if (stopRequested) {
+                    session.closePrefetchPage();
+                    return pageCount + 1;
                 }
             }
 
-            if (!nextPage(crawlerCfg, page)) {
+            if (prefetched) {
+                baseUrl = nextUrl;
+            } else if (!nextPage(crawlerCfg, page)) {
                 break;
             }
             var duration = System.currentTimeMillis() - startTime;
             log.info("Crawled items on page {} in {} ms", pageCount, duration);
         }
+        session.closePrefetchPage();
+        return 0;
+    }
+
+    // Called from a PageVisitor: pagination ends once the current page has been visited
+    public void stopAfterPage() {
+        stopRequested = true;
+    }
+
+    private void acquire() {
+        limiter.acquire();
+        if (crawlerLimiter != null) crawlerLimiter.acquire();
+    }
+
+    // Navigates and waits for the load; xhr crawlers also keep the JSON response the page fetched
+    public void load(Page page, CrawlerConfig crawlerCfg, String url) throws Exception {
+        if (XhrSource.isXhr(crawlerCfg)) {
+            lastResponse = XhrSource.capture(page, crawlerCfg, () -> page.navigate(url));
+        } else {
+            page.navigate(url);
+        }
+        page.waitForLoadState();
+    }
+
+    // Returns the URL being prefetched, or null when the next link has no usable href and must be clicked
+    private String startPrefetch(BrowserSession session, CrawlerConfig crawlerCfg, Page page) {
+        if (crawlerCfg.getProperties().getNextSelector() == null) {
+            return null;
+        }
+        try {
+            var nextButton = page.locator(crawlerCfg.getProperties().getNextSelector()).first();
+            if (!nextButton.isVisible()) {
+                return null;
+            }
+            String href = nextButton.getAttribute("href");
+            if (href == null || href.isBlank() || href.startsWith("#") || href.startsWith("javascript:")) {
+                return null;
+            }
+            String nextUrl = UrlUtils.toAbsolute(page.url(), href).toString();
+            acquire();
+            log.info("Prefetch next list page: {}", nextUrl);
+            // COMMIT returns once the response starts; the rest of the load overlaps with row extraction
+            NavigateEvent event = NavigateEvent.start();
+            session.prefetchPage().navigate(nextUrl, new Page.NavigateOptions().setWaitUntil(WaitUntilState.COMMIT));
+            if (event != null) {
+                event.kind = "prefetch";
+                event.crawler = crawlerCfg.getId();
+                event.url = nextUrl;
+                event.commit();
+            }
+            return nextUrl;
+        } catch (Exception e) {
+            log.warn("Could not prefetch next page: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean swapInPrefetched(BrowserSession session, int pageCount, String url) {
+        try {
+            Page prefetchedPage = session.prefetchPage();
+            prefetchedPage.waitForLoadState();
+            session.swapPrefetchPage();
+            log.info("Using prefetched list page {}: {}", pageCount, url);
+            return true;
+        } catch (Exception e) {
+            log.warn("Prefetched page {} did not load, navigating again: {}", url, e.getMessage());
+            return false;
+        }
+    }
+
+    public void extractPage(Page page, Config.CrawlerConfig crawlerCfg, RecordSink writers, int pageNumber) {
+        if (XhrSource.isXhr(crawlerCfg)) {
+            extractXhrPage(page, crawlerCfg, writers, pageNumber);
+            return;
+        }
+        if (crawlerCfg.getProperties() == null || crawlerCfg.getProperties().getItemSelectors() == null) {
+            return;
+        }
+        String itemSelector = crawlerCfg.getProperties().getItemSelectors();
+        if (crawlerCfg.getRootSelector() != null) {
+            itemSelector = crawlerCfg.getRootSelector() + " " + itemSelector;
+        }
+
+        var items = page.locator(itemSelector).all();
+        log.info("Found {} items on page {}", items.size(), pageNumber);
+        DeadLetters.Entry context = listContext(page, crawlerCfg, pageNumber);
+
+        for (int index = 0; index < items.size(); index++) {
+            var item = items.get(index);
+            crawlItem(page, crawlerCfg, writers, item, index, context);
+        }
+        log.info("Completed crawling all {} items on page {}", items.size(), pageNumber);
+    }
+
+    private void extractXhrPage(Page page, CrawlerConfig crawlerCfg, RecordSink writers, int pageNumber) {
+        if (lastResponse == null) {
+            log.warn("No captured response for crawler '{}' on page {}", crawlerCfg.getId(), pageNumber);
+            return;
+        }
+        List<JsonNode> items = XhrSource.items(lastResponse, crawlerCfg);
+        log.info("Found {} items in response for page {}", items.size(), pageNumber);
+        String linkPath = crawlerCfg.getXhr().getDetailLinkPath();
+        DeadLetters.Entry context = listContext(page, crawlerCfg, pageNumber);
+        for (int index = 0; index < items.size(); index++) {
+            JsonNode item = items.get(index);
+            Map<String, Object> listRecord = extractor.extract(page, item, crawlerCfg, context);
+            String detailUrl = null;
+            if (linkPath != null) {
+                JsonNode link = XhrSource.at(item, linkPath);
+                if (link.isValueNode() && !link.asText().isBlank()) {
+                    detailUrl = UrlUtils.toAbsolute(config.getBaseUrl(), link.asText()).toString();
+                }
+            }
+            handleRow(page, crawlerCfg, writers, listRecord, detailUrl, CrawlGraph.edges(config, crawlerCfg, item),
+                index);
+        }
+        log.info("Completed crawling all {} items on page {}", items.size(), pageNumber);
+    }
+
+    // A page extracted outside of pagination, as in distributed mode, has a URL of its own
+    private DeadLetters.Entry listContext(Page page, CrawlerConfig crawlerCfg, int pageNumber) {
+        String url = listUrl != null ? listUrl : page.url();
+        return DeadLetters.Entry.of(DeadLetters.LIST, crawlerCfg, url, parentId, pageNumber);
     }
 
     private boolean nextPage(CrawlerConfig crawlerCfg, Page page) {
@@ -105,8 +375,12 @@ public class ListCrawler {
                 return false;
             }
 
-            limiter.acquire();
-            nextButton.click();
+            acquire();
+            if (XhrSource.isXhr(crawlerCfg)) {
+                lastResponse = XhrSource.capture(page, crawlerCfg, nextButton::click);
+            } else {
+                nextButton.click();
+            }
             page.waitForLoadState();
             Thread.sleep(1000); // Wait for page to load
             baseUrl = page.url(); // Update baseUrl in case of URL change
@@ -117,10 +391,89 @@ public class ListCrawler {
         }
     }
 
-    private void crawlItem(Page page, CrawlerConfig crawlerCfg, OutputWriters writers, Locator item,
-        int index) {
-        Map<String, Object> listRecord = extractListFields(page, item, crawlerCfg, index);
+    // Scroll mode: rows are extracted as they appear and marked, so each pass only looks at unmarked ones.
+    // The DOM never has to hold the whole list, and only the keys seen so far are kept in memory.
+    private void harvest(Page page, CrawlerConfig crawlerCfg, RecordSink writers, int pageNumber) {
+        Config.Scroll scroll = crawlerCfg.getProperties().getScroll();
+        String itemSelector = crawlerCfg.getProperties().getItemSelectors();
+        if (itemSelector == null) return;
+        // :is() keeps the attribute filters below on every alternative of a comma-separated selector
+        String rows = ":is(" + itemSelector + ")";
+        if (crawlerCfg.getRootSelector() != null) {
+            rows = crawlerCfg.getRootSelector() + " " + rows;
+        }
+        Locator fresh = page.locator(rows + ":not([" + SEEN_ATTRIBUTE + "])");
+        String uniqueKey = crawlerCfg.getProperties().getUniqueKey();
+        Config.Field keyField = crawlerCfg.getFields() == null || uniqueKey == null ? null : crawlerCfg.getFields().stream()
+            .filter(f -> uniqueKey.equals(f.getName()))
+            .findFirst()
+            .orElse(null);
+        DeadLetters.Entry context = listContext(page, crawlerCfg, pageNumber);
+        Set<String> seen = new HashSet<>();
+        int index = 0;
+        int idle = 0;
+        int pass = 0;
+        while (idle < scroll.getIdleRounds() && (scroll.getMaxRows() <= 0 || index < scroll.getMaxRows())) {
+            if (budget != null && budget.isExhausted()) {
+                // Scroll position can't be resumed, so the page is harvested again from the top next time
+                log.info("Run budget reached, stopping scroll harvest of page {} after {} rows", pageNumber, index);
+                harvestCut = true;
+                return;
+            }
+            int added = 0;
+            pass++;
+            // Marking takes rows out of `fresh`, whose nth() is live, so each row of this pass gets its own mark and
+            // is read back through it
+            int count = ((Number) fresh.evaluateAll(
+                "(rows, [attr, pass]) => { rows.forEach((r, i) => r.setAttribute(attr, pass + '-' + i)); return rows.length; }",
+                List.of(SEEN_ATTRIBUTE, pass))).intValue();
+            for (int i = 0; i < count; i++) {
+                Locator item = page.locator(rows + "[" + SEEN_ATTRIBUTE + "='" + pass + "-" + i + "']");
+                // Virtualized tables re-render rows scrolled back into view as new, unmarked elements; the key is read
+                // on its own so those are dropped before their other fields and images are fetched
+                Object key = readKey(item, keyField, context);
+                if (key != null && !seen.add(key.toString())) continue;
+                Map<String, Object> listRecord = extractListFields(item, crawlerCfg, index, context);
+                handleRow(page, crawlerCfg, writers, listRecord, detailUrl(item, crawlerCfg, index),
+                    CrawlGraph.edges(config, crawlerCfg, item, page.url()), index);
+                index++;
+                added++;
+            }
+            if (scroll.isPrune()) {
+                page.locator(rows + "[" + SEEN_ATTRIBUTE + "]").evaluateAll("rows => rows.forEach(r => r.remove())");
+            }
+            boolean atBottom = (Boolean) page.evaluate(SCROLL_JS, scroll.getContainer());
+            // Stepping through rows already on the page finds nothing new; only a bottom that stays put means the end
+            if (added > 0) {
+                idle = 0;
+            } else if (atBottom) {
+                idle++;
+            }
+            if (atBottom) acquire();
+            page.waitForTimeout(scroll.getWaitMs());
+            log.info("Scroll harvest of page {}: {} rows so far", pageNumber, index);
+        }
+        log.info("Completed scroll harvest of {} rows on page {}", index, pageNumber);
+    }
+
+    // The unique key field alone; null when there is none or it can't be read yet
+    private Object readKey(Locator item, Config.Field keyField, DeadLetters.Entry context) {
+        if (keyField == null) return null;
+        try {
+            return extractor.extractFromLocator(item, keyField, context.withField(keyField.getId()));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private void crawlItem(Page page, CrawlerConfig crawlerCfg, RecordSink writers, Locator item,
+        int index, DeadLetters.Entry context) {
+        Map<String, Object> listRecord = extractListFields(item, crawlerCfg, index, context);
+        handleRow(page, crawlerCfg, writers, listRecord, detailUrl(item, crawlerCfg, index),
+            CrawlGraph.edges(config, crawlerCfg, item, page.url()), index);
+    }
 
+    private String detailUrl(Locator item, CrawlerConfig crawlerCfg, int index) {
         // Get detail link if available
         String detailUrl = null;
         if (crawlerCfg.getProperties().getDetailLinkSelector() != null) {
@@ -136,32 +489,73 @@ public class ListCrawler {
                 log.warn("Could not extract detail link for item {}: {}", index, e.getMessage());
             }
         }
+        return detailUrl;
+    }
 
-        // Save list item data (synchronous)
+    private void handleRow(Page page, CrawlerConfig crawlerCfg, RecordSink writers, Map<String, Object> listRecord,
+                           String detailUrl, List<CrawlGraph.Edge> children, int index) {
         String uniqueId = getUniqueId(listRecord, crawlerCfg.getProperties().getUniqueKey(), index);
-        writers.writeForUrl("list_" + crawlerCfg.getId() + "_" + uniqueId, listRecord);
-
-        // Add detail crawling task if available (asynchronous)
+        if (parentId != null) {
+            listRecord.put("_parentId", parentId);
+            // Without a unique key, rows of sibling lists would share item_N names
+            if (uniqueId.startsWith("item_")) uniqueId = parentId + "_" + uniqueId;
+        }
+        CrawlerConfig detailCrawler = null;
         if (detailUrl != null && crawlerCfg.getProperties().getCrawlId() != null) {
-            CrawlerConfig detailCrawler = config.findCrawlerById(crawlerCfg.getProperties().getCrawlId());
-            if (detailCrawler != null) {
-                crawlDetailItem(page, detailCrawler, detailUrl, uniqueId, writers);
-            } else {
+            detailCrawler = config.findCrawlerById(crawlerCfg.getProperties().getCrawlId());
+            if (detailCrawler == null) {
                 log.warn("Detail crawler '{}' not found", crawlerCfg.getProperties().getCrawlId());
             }
         }
+        ListRow row = new ListRow(crawlerCfg, uniqueId, listRecord, detailCrawler, detailCrawler != null ? detailUrl : null,
+            children);
+
+        if (rowHandler != null) {
+            try {
+                rowHandler.handle(row);
+            } catch (Exception e) {
+                log.error("Failed to hand off {}: {}", row, e.getMessage());
+            }
+            return;
+        }
+
+        // Save list item data (synchronous)
+        writers.write(crawlerCfg, listRecordName(row), uniqueId, listRecord);
+        if (!children.isEmpty()) {
+            log.warn("Row {} links to {} child pages, which are only followed by the crawl pipeline", row, children.size());
+        }
+
+        // Crawl the detail page in a new tab
+        if (row.detailCrawler() != null) {
+            crawlDetailItem(page, row.detailCrawler(), row.detailUrl(), uniqueId, writers);
+        }
+    }
+
+    public static String listRecordName(ListRow row) {
+        return "list_" + row.crawlerCfg().getId() + "_" + row.uniqueId();
     }
 
-    private Map<String, Object> extractListFields(Page page, Locator itemLocator, Config.CrawlerConfig crawlerCfg, int index) {
+    private Map<String, Object> extractListFields(Locator itemLocator, Config.CrawlerConfig crawlerCfg, int index,
+                                                  DeadLetters.Entry context) {
         Map<String, Object> record = new HashMap<>();
         if (crawlerCfg.getFields() != null) {
             for (Config.Field field : crawlerCfg.getFields()) {
+                FieldExtractEvent event = FieldExtractEvent.start();
                 try {
-                    Object value = extractFieldFromItem(itemLocator, field);
+                    Object value = extractor.extractFromLocator(itemLocator, field, context.withField(field.getId()));
                     record.put(field.getName(), value);
+                    extractor.putVariants(record, field, value);
                 } catch (Exception e) {
                     log.warn("Failed to extract field '{}' from item {}: {}", field.getName(), index, e.getMessage());
                     record.put(field.getName(), null);
+                    extractor.deadLetter(context.failed(field.getId(), e));
+                    if (event != null) event.failed = true;
+                }
+                if (event != null) {
+                    event.crawler = crawlerCfg.getId();
+                    event.fieldId = field.getId();
+                    event.fieldType = field.getType();
+                    event.commit();
                 }
             }
         }
@@ -169,10 +563,6 @@ public class ListCrawler {
         return record;
     }
 
-    private Object extractFieldFromItem(Locator itemLocator, Config.Field field) {
-        return extractor.extractFromLocator(itemLocator, field);
-    }
-
     private String getUniqueId(Map<String, Object> record, String uniqueKey, int fallbackIndex) {
         if (uniqueKey != null && record.containsKey(uniqueKey)) {
             Object value = record.get(uniqueKey);
@@ -183,7 +573,7 @@ public class ListCrawler {
         return "item_" + fallbackIndex;
     }
 
-    private void crawlDetailItem(Page page, Config.CrawlerConfig detailCrawler, String detailUrl, String uniqueId, OutputWriters writers) {
+    private void crawlDetailItem(Page page, Config.CrawlerConfig detailCrawler, String detailUrl, String uniqueId, RecordSink writers) {
         Page detailPage = null;
         try {
             // Create new tab/page for detail crawling
@@ -196,6 +586,8 @@ public class ListCrawler {
             detailCrawlerInstance.crawl(detailPage, detailCrawler, writers, detailUrl, uniqueId);
         } catch (Exception e) {
             log.error("Failed to crawl detail page {}: {}", detailUrl, e.getMessage());
+            extractor.deadLetter(DeadLetters.Entry.of(DeadLetters.DETAIL, detailCrawler, detailUrl, uniqueId, null)
+                .failed(null, e));
         } finally {
             if (detailPage != null) {
                 try {
@@ -2,15 +2,33 @@ package com.luanvv.crawler.core;
 
 import com.microsoft.playwright.Page;
 import com.microsoft.playwright.options.WaitForSelectorState;
-import lombok.RequiredArgsConstructor;
+import java.util.function.Consumer;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
-@RequiredArgsConstructor
 public class LoginManager {
     private final Config config;
+    private final String usernameEnv;
+    private final String passwordEnv;
+    // Given the storage state of every successful login, so a relogin on any page replaces the one handed out
+    @Setter private Consumer<String> onLogin;
+
+    public LoginManager(Config config) {
+        this(config,
+            config.getLogin() != null ? config.getLogin().getUsernameEnv() : null,
+            config.getLogin() != null ? config.getLogin().getPasswordEnv() : null);
+    }
+
+    public LoginManager(Config config, String usernameEnv, String passwordEnv) {
+        this.config = config;
+        this.usernameEnv = usernameEnv;
+        this.passwordEnv = passwordEnv;
+    }
 
     public boolean ensureLoggedIn(Page page) {
+        // Replayed pages were recorded logged in, and there is no live site to log in to
+        if (HarArchive.isReplaying(config)) return true;
         try {
             if (isLoggedIn(page)) return true;
             return login(page);
@@ -31,11 +49,12 @@ public class LoginManager {
     }
 
     public boolean login(Page page) {
+        if (HarArchive.isReplaying(config)) return true;
         var login = config.getLogin();
-        String username = System.getenv(login.getUsernameEnv());
-        String password = System.getenv(login.getPasswordEnv());
+        String username = usernameEnv != null ? System.getenv(usernameEnv) : null;
+        String password = passwordEnv != null ? System.getenv(passwordEnv) : null;
         if (username == null || password == null) {
-            log.error("Missing credentials in env vars {} / {}", login.getUsernameEnv(), login.getPasswordEnv());
+            log.error("Missing credentials in env vars {} / {}", usernameEnv, passwordEnv);
             return false;
         }
         String loginUrl = config.getBaseUrl() + login.getUrl();
@@ -48,6 +67,7 @@ public class LoginManager {
         try {
             page.waitForSelector(login.getLoggedInCheckSelector(), new Page.WaitForSelectorOptions().setState(WaitForSelectorState.VISIBLE).setTimeout(login.getTimeoutMs()));
             log.info("Logged in successfully");
+            if (onLogin != null) onLogin.accept(page.context().storageState());
             return true;
         } catch (Exception e) {
             log.warn("Login check not visible: {}", e.getMessage());
@@ -2,6 +2,7 @@ package com.luanvv.crawler.core;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.luanvv.crawler.jfr.RecordWriteEvent;
 import com.opencsv.CSVWriter;
 import java.io.IOException;
 import java.io.Writer;
@@ -13,11 +14,14 @@ import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
-public class OutputWriters {
+public class OutputWriters implements RecordSink, AutoCloseable {
     private final Path baseDir;
     private final boolean jsonEnabled;
     private final boolean csvEnabled;
     private final ObjectMapper objectMapper;
+    private final ParquetWriters parquetWriters;
+    private final RecordStore recordStore;
+    private final SearchIndex searchIndex;
 
     public OutputWriters(Config.Output cfg) throws IOException {
         this.baseDir = Path.of(cfg.getDir());
@@ -25,6 +29,29 @@ public class OutputWriters {
         this.jsonEnabled = cfg.isJson();
         this.csvEnabled = cfg.isCsv();
         this.objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        this.parquetWriters = cfg.getParquet() != null && cfg.getParquet().isEnabled()
+            ? new ParquetWriters(baseDir, cfg.getParquet())
+            : null;
+        this.recordStore = cfg.getStore() != null && cfg.getStore().isEnabled()
+            ? RecordStore.open(cfg)
+            : null;
+        this.searchIndex = cfg.getSearch() != null && cfg.getSearch().isEnabled()
+            ? SearchIndex.open(cfg)
+            : null;
+    }
+
+    @Override
+    public void write(Config.CrawlerConfig crawlerCfg, String name, String id, Map<String, Object> record) {
+        RecordWriteEvent event = RecordWriteEvent.start();
+        writeForUrl(name, record);
+        if (parquetWriters != null) parquetWriters.write(crawlerCfg, id, record);
+        if (recordStore != null) recordStore.upsert(crawlerCfg.getId(), id, record);
+        if (searchIndex != null) searchIndex.index(crawlerCfg.getId(), id, record);
+        if (event != null) {
+            event.crawler = crawlerCfg.getId();
+            event.name = name;
+            event.commit();
+        }
     }
 
     public void writeForUrl(String url, Map<String, Object> record) {
@@ -56,6 +83,13 @@ public class OutputWriters {
         }
     }
 
+    @Override
+    public void close() {
+        if (parquetWriters != null) parquetWriters.close();
+        if (recordStore != null) recordStore.close();
+        if (searchIndex != null) searchIndex.close();
+    }
+
     private String toStringSafe(Object v) {
         if (v == null) return "";
         if (v instanceof List<?> list) return String.join("|", list.stream().map(String::valueOf).toList());
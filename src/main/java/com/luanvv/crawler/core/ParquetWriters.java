@@ -0,0 +1,192 @@
+package com.luanvv.crawler.core;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.parquet.conf.PlainParquetConfiguration;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.hadoop.ParquetFileWriter;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.example.ExampleParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.io.LocalOutputFile;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Types;
+
+@Slf4j
+public class ParquetWriters implements AutoCloseable {
+    private static final String ID_COLUMN = "_id";
+    private static final String PARENT_COLUMN = "_parentId";
+    private static final String URL_COLUMN = "url";
+
+    private final Path baseDir;
+    private final Config.Parquet cfg;
+    private final String runStamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+    private final Map<String, CrawlerWriter> writers = new HashMap<>();
+
+    public ParquetWriters(Path outputDir, Config.Parquet cfg) throws IOException {
+        this.cfg = cfg;
+        this.baseDir = outputDir.resolve(cfg.getDir());
+        Files.createDirectories(baseDir);
+    }
+
+    public synchronized void write(Config.CrawlerConfig crawlerCfg, String id, Map<String, Object> record) {
+        try {
+            CrawlerWriter writer = writers.get(crawlerCfg.getId());
+            if (writer == null) {
+                writer = new CrawlerWriter(crawlerCfg);
+                writers.put(crawlerCfg.getId(), writer);
+            }
+            writer.write(id, record);
+        } catch (IOException e) {
+            log.error("Failed to write Parquet record {} for crawler {}", id, crawlerCfg.getId(), e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        for (CrawlerWriter writer : writers.values()) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                log.error("Failed to close Parquet writer for crawler {}", writer.crawlerCfg.getId(), e);
+            }
+        }
+        writers.clear();
+    }
+
+    static MessageType schemaFor(Config.CrawlerConfig crawlerCfg) {
+        Types.MessageTypeBuilder builder = Types.buildMessage();
+        builder.optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named(ID_COLUMN);
+        builder.optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named(PARENT_COLUMN);
+        builder.optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named(URL_COLUMN);
+        if (crawlerCfg.getFields() != null) {
+            for (Config.Field field : crawlerCfg.getFields()) {
+                String column = columnName(field);
+                if (isBoolean(field)) {
+                    builder.optional(PrimitiveTypeName.BOOLEAN).named(column);
+                } else if (isList(field)) {
+                    builder.optionalList()
+                        .optionalElement(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType())
+                        .named(column);
+                } else {
+                    builder.optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named(column);
+                }
+            }
+        }
+        return builder.named(crawlerCfg.getId());
+    }
+
+    private static String columnName(Config.Field field) {
+        return field.getId() != null && !field.getId().isBlank() ? field.getId() : field.getName();
+    }
+
+    private static boolean isBoolean(Config.Field field) {
+        return "boolean".equals(field.getType()) || "checkbox".equals(field.getType());
+    }
+
+    private static boolean isList(Config.Field field) {
+        return "image".equals(field.getType()) && field.isMultiple();
+    }
+
+    private class CrawlerWriter {
+        private final Config.CrawlerConfig crawlerCfg;
+        private final MessageType schema;
+        private final SimpleGroupFactory groupFactory;
+        private final Path dir;
+        private ParquetWriter<Group> writer;
+        private Path inProgress;
+        private int fileIndex = 0;
+        private long rowsInFile = 0;
+
+        CrawlerWriter(Config.CrawlerConfig crawlerCfg) throws IOException {
+            this.crawlerCfg = crawlerCfg;
+            this.schema = schemaFor(crawlerCfg);
+            this.groupFactory = new SimpleGroupFactory(schema);
+            this.dir = baseDir.resolve(UrlUtils.sanitizeForFilename(crawlerCfg.getId()));
+            Files.createDirectories(dir);
+        }
+
+        void write(String id, Map<String, Object> record) throws IOException {
+            if (writer == null) {
+                open();
+            }
+            writer.write(toGroup(id, record));
+            rowsInFile++;
+            if (cfg.getRowsPerFile() > 0 && rowsInFile >= cfg.getRowsPerFile()) {
+                close();
+            }
+        }
+
+        private void open() throws IOException {
+            String name = String.format("part-%s-%05d.parquet", runStamp, fileIndex++);
+            inProgress = dir.resolve(name + ".inprogress");
+            writer = ExampleParquetWriter.builder(new LocalOutputFile(inProgress))
+                .withConf(new PlainParquetConfiguration())
+                .withType(schema)
+                .withWriteMode(ParquetFileWriter.Mode.OVERWRITE)
+                .withCompressionCodec(CompressionCodecName.fromConf(cfg.getCompression()))
+                .withRowGroupSize((long) Math.max(1, cfg.getRowGroupSizeMb()) * 1024 * 1024)
+                .build();
+            rowsInFile = 0;
+            log.info("Opened Parquet file {}", inProgress);
+        }
+
+        void close() throws IOException {
+            if (writer == null) return;
+            writer.close();
+            writer = null;
+            String fileName = inProgress.getFileName().toString();
+            Path done = inProgress.resolveSibling(fileName.substring(0, fileName.length() - ".inprogress".length()));
+            Files.move(inProgress, done, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Wrote {} rows to Parquet file {}", rowsInFile, done);
+        }
+
+        private Group toGroup(String id, Map<String, Object> record) {
+            Group group = groupFactory.newGroup();
+            appendString(group, ID_COLUMN, id);
+            appendString(group, PARENT_COLUMN, record.get(PARENT_COLUMN));
+            appendString(group, URL_COLUMN, record.get(URL_COLUMN));
+            if (crawlerCfg.getFields() == null) return group;
+            for (Config.Field field : crawlerCfg.getFields()) {
+                Object value = record.get(field.getName());
+                if (value == null) continue;
+                String column = columnName(field);
+                if (isBoolean(field)) {
+                    group.append(column, value instanceof Boolean b ? b : Boolean.parseBoolean(value.toString()));
+                } else if (isList(field)) {
+                    Group list = group.addGroup(column);
+                    for (Object element : toList(value)) {
+                        Group item = list.addGroup("list");
+                        if (element != null) item.append("element", element.toString());
+                    }
+                } else {
+                    appendString(group, column, value);
+                }
+            }
+            return group;
+        }
+
+        private void appendString(Group group, String column, Object value) {
+            if (value != null) group.append(column, value.toString());
+        }
+
+        private List<?> toList(Object value) {
+            if (value instanceof List<?> list) return list;
+            List<Object> single = new ArrayList<>();
+            single.add(value);
+            return single;
+        }
+    }
+}
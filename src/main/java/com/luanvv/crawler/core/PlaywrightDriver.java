@@ -0,0 +1,100 @@
+package com.luanvv.crawler.core;
+
+import com.microsoft.playwright.Playwright;
+import com.microsoft.playwright.impl.driver.Driver;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import lombok.extern.slf4j.Slf4j;
+
+// Playwright.create() normally unpacks its Node driver into a temp dir and runs `playwright install` on every start.
+// With browser.driverDir the unpacked driver is kept and reused through playwright.cli.dir, which skips both.
+@Slf4j
+public class PlaywrightDriver {
+    private static final String CLI_DIR_PROPERTY = "playwright.cli.dir";
+    // Set by the dist launcher so every config shares the driver unpacked next to the jar
+    private static final String DRIVER_DIR_PROPERTY = "crawler.driver.dir";
+    // Saving the driver goes through Playwright's internal Driver class, which is only known to work on this version
+    private static final String SUPPORTED_DRIVER_VERSION = "1.46.0";
+
+    public static Playwright create(Config config) {
+        Config.Browser cfg = BrowserServer.browserConfig(config);
+        Map<String, String> env = new HashMap<>();
+        if (cfg.getBrowsersPath() != null && !cfg.getBrowsersPath().isBlank()) {
+            env.put("PLAYWRIGHT_BROWSERS_PATH", Paths.get(cfg.getBrowsersPath()).toAbsolutePath().toString());
+        }
+        String driverDir = cfg.getDriverDir() != null && !cfg.getDriverDir().isBlank()
+            ? cfg.getDriverDir()
+            : System.getProperty(DRIVER_DIR_PROPERTY);
+        if (driverDir != null && !driverDir.isBlank()) {
+            usePersistentDriver(Paths.get(driverDir).toAbsolutePath(), env);
+        }
+        return Playwright.create(new Playwright.CreateOptions().setEnv(env));
+    }
+
+    private static synchronized void usePersistentDriver(Path dir, Map<String, String> env) {
+        if (System.getProperty(CLI_DIR_PROPERTY) != null) return;
+        if (Files.exists(dir.resolve("package").resolve("cli.js"))) {
+            System.setProperty(CLI_DIR_PROPERTY, dir.toString());
+            log.debug("Using pre-extracted Playwright driver in {}", dir);
+            return;
+        }
+        String version = driverVersion();
+        if (!SUPPORTED_DRIVER_VERSION.equals(version)) {
+            log.warn("Playwright driver {} is not {}, the version driverDir supports; using a temp copy as usual",
+                version, SUPPORTED_DRIVER_VERSION);
+            return;
+        }
+        // First run: let Playwright unpack (and install browsers) as usual, then keep a copy for the next JVM.
+        // The driver is a per-JVM singleton, so this process carries on with the temp copy.
+        try {
+            Driver driver = Driver.ensureDriverInstalled(env, true);
+            Path tmp = dir.resolveSibling(dir.getFileName() + ".tmp");
+            deleteRecursively(tmp);
+            copyRecursively(driver.driverDir(), tmp);
+            Files.createDirectories(dir.toAbsolutePath().getParent());
+            Files.move(tmp, dir, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Saved Playwright driver to {}; later runs start from there", dir);
+        } catch (Exception | LinkageError e) {
+            log.warn("Could not save Playwright driver to {}: {}", dir, e.toString());
+        }
+    }
+
+    // From the driver jar's Maven metadata, which the shaded jar keeps
+    private static String driverVersion() {
+        try (InputStream in = Driver.class.getResourceAsStream(
+            "/META-INF/maven/com.microsoft.playwright/driver/pom.properties")) {
+            if (in == null) return null;
+            Properties properties = new Properties();
+            properties.load(in);
+            return properties.getProperty("version");
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void copyRecursively(Path source, Path target) throws IOException {
+        try (var paths = Files.walk(source)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                // COPY_ATTRIBUTES keeps the node binary executable
+                Files.copy(path, target.resolve(source.relativize(path).toString()), StandardCopyOption.COPY_ATTRIBUTES);
+            }
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) return;
+        try (var paths = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -1,28 +1,77 @@
 package com.luanvv.crawler.core;
 
+import com.luanvv.crawler.jfr.RateLimitWaitEvent;
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.TokensInheritanceStrategy;
 import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class RateLimiter {
     private final Bucket bucket;
+    private final int burst;
+    private final boolean enabled;
+    private volatile double permitsPerSecond;
+    private final AtomicLong waitNanos = new AtomicLong();
+
+    // Replaying recorded traffic never touches the site, so nothing needs to be limited
+    public static RateLimiter of(Config config) {
+        return of(config, config.getRateLimit());
+    }
+
+    // A limit other than the account's, such as a crawler's own, under the same replay rule
+    public static RateLimiter of(Config config, Config.RateLimit cfg) {
+        return new RateLimiter(cfg, !HarArchive.isReplaying(config));
+    }
 
     public RateLimiter(Config.RateLimit cfg) {
-        double permitsPerSecond = Math.max(0.1, cfg.getPermitsPerSecond());
-        int burst = Math.max(cfg.getBurst(), 1);
-        long tokensPerSecond = Math.max(1, Math.round(permitsPerSecond));
-        Bandwidth limit = Bandwidth.builder()
+        this(cfg, true);
+    }
+
+    private RateLimiter(Config.RateLimit cfg, boolean enabled) {
+        this.enabled = enabled;
+        this.permitsPerSecond = Math.max(0.1, cfg.getPermitsPerSecond());
+        this.burst = Math.max(cfg.getBurst(), 1);
+        bucket = Bucket.builder().addLimit(bandwidth(permitsPerSecond)).build();
+    }
+
+    // Refilled per minute so fractional rates such as 0.5/s are honoured
+    private Bandwidth bandwidth(double permitsPerSecond) {
+        long tokensPerMinute = Math.max(1, Math.round(permitsPerSecond * 60));
+        return Bandwidth.builder()
                 .capacity(burst)
-                .refillGreedy(tokensPerSecond, Duration.ofSeconds(1))
+                .refillGreedy(tokensPerMinute, Duration.ofMinutes(1))
+                .build();
+    }
+
+    // Total time callers have spent blocked in acquire()
+    public long waitMillis() {
+        return waitNanos.get() / 1_000_000;
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public void setPermitsPerSecond(double permitsPerSecond) {
+        this.permitsPerSecond = Math.max(0.1, permitsPerSecond);
+        BucketConfiguration configuration = BucketConfiguration.builder()
+                .addLimit(bandwidth(this.permitsPerSecond))
                 .build();
-        bucket = Bucket.builder().addLimit(limit).build();
+        bucket.replaceConfiguration(configuration, TokensInheritanceStrategy.PROPORTIONALLY);
     }
 
     public void acquire() {
+        if (!enabled) return;
+        long start = System.nanoTime();
+        RateLimitWaitEvent event = RateLimitWaitEvent.start();
         try {
             bucket.asBlocking().consume(1);
+            waitNanos.addAndGet(System.nanoTime() - start);
+            if (event != null) event.commit();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new RuntimeException("Interrupted while waiting for rate limiter", e);
@@ -0,0 +1,7 @@
+package com.luanvv.crawler.core;
+
+import java.util.Map;
+
+public interface RecordSink {
+    void write(Config.CrawlerConfig crawlerCfg, String name, String id, Map<String, Object> record);
+}
@@ -0,0 +1,182 @@
+package com.luanvv.crawler.core;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class RecordStore implements AutoCloseable {
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
+    private final Connection connection;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public record StoredRecord(String crawlerId, String id, String parentId, String url, Instant updatedAt,
+                               Map<String, Object> data) {}
+
+    public record JoinedRecord(StoredRecord parent, StoredRecord child) {}
+
+    public RecordStore(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        String url = "jdbc:h2:file:" + dir.toAbsolutePath().resolve("records") + ";AUTO_SERVER=TRUE";
+        try {
+            connection = DriverManager.getConnection(url, "sa", "");
+            createSchema();
+        } catch (SQLException e) {
+            throw new IOException("Cannot open record store " + dir, e);
+        }
+        log.info("Opened record store {}", dir);
+    }
+
+    public static RecordStore open(Config.Output cfg) throws IOException {
+        return new RecordStore(Path.of(cfg.getDir()).resolve(cfg.getStore().getDir()));
+    }
+
+    private void createSchema() throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.execute("""
+                CREATE TABLE IF NOT EXISTS records (
+                    crawler_id VARCHAR(255) NOT NULL,
+                    id VARCHAR(255) NOT NULL,
+                    parent_id VARCHAR(255),
+                    url VARCHAR(4096),
+                    updated_at TIMESTAMP NOT NULL,
+                    data CLOB NOT NULL,
+                    PRIMARY KEY (crawler_id, id)
+                )""");
+            st.execute("CREATE INDEX IF NOT EXISTS records_parent_idx ON records (parent_id, crawler_id)");
+        }
+    }
+
+    public synchronized void upsert(String crawlerId, String id, Map<String, Object> record) {
+        String sql = "MERGE INTO records (crawler_id, id, parent_id, url, updated_at, data) KEY (crawler_id, id) "
+            + "VALUES (?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setString(1, crawlerId);
+            ps.setString(2, id);
+            ps.setString(3, stringOrNull(record.get("_parentId")));
+            ps.setString(4, stringOrNull(record.get("url")));
+            ps.setTimestamp(5, Timestamp.from(Instant.now()));
+            ps.setString(6, objectMapper.writeValueAsString(record));
+            ps.executeUpdate();
+        } catch (SQLException | JsonProcessingException e) {
+            log.error("Failed to store record {}/{}", crawlerId, id, e);
+        }
+    }
+
+    public synchronized Optional<StoredRecord> get(String crawlerId, String id) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+            "SELECT crawler_id, id, parent_id, url, updated_at, data FROM records WHERE crawler_id = ? AND id = ?")) {
+            ps.setString(1, crawlerId);
+            ps.setString(2, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? Optional.of(read(rs, 1)) : Optional.empty();
+            }
+        }
+    }
+
+    public synchronized List<StoredRecord> list(String crawlerId, int offset, int limit) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+            "SELECT crawler_id, id, parent_id, url, updated_at, data FROM records WHERE crawler_id = ? "
+                + "ORDER BY id LIMIT ? OFFSET ?")) {
+            ps.setString(1, crawlerId);
+            ps.setInt(2, limit);
+            ps.setInt(3, offset);
+            List<StoredRecord> out = new ArrayList<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) out.add(read(rs, 1));
+            }
+            return out;
+        }
+    }
+
+    public synchronized List<StoredRecord> children(String parentId, String childCrawlerId) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+            "SELECT crawler_id, id, parent_id, url, updated_at, data FROM records WHERE parent_id = ? AND crawler_id = ? "
+                + "ORDER BY id")) {
+            ps.setString(1, parentId);
+            ps.setString(2, childCrawlerId);
+            List<StoredRecord> out = new ArrayList<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) out.add(read(rs, 1));
+            }
+            return out;
+        }
+    }
+
+    public synchronized List<JoinedRecord> listJoined(String crawlerId, String childCrawlerId, int offset, int limit)
+        throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("""
+            SELECT p.crawler_id, p.id, p.parent_id, p.url, p.updated_at, p.data,
+                   c.crawler_id, c.id, c.parent_id, c.url, c.updated_at, c.data
+            FROM (SELECT * FROM records WHERE crawler_id = ? ORDER BY id LIMIT ? OFFSET ?) p
+            LEFT JOIN records c ON c.parent_id = p.id AND c.crawler_id = ?
+            ORDER BY p.id, c.id""")) {
+            ps.setString(1, crawlerId);
+            ps.setInt(2, limit);
+            ps.setInt(3, offset);
+            ps.setString(4, childCrawlerId);
+            List<JoinedRecord> out = new ArrayList<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    StoredRecord child = rs.getString(8) != null ? read(rs, 7) : null;
+                    out.add(new JoinedRecord(read(rs, 1), child));
+                }
+            }
+            return out;
+        }
+    }
+
+    public synchronized long count(String crawlerId) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("SELECT COUNT(*) FROM records WHERE crawler_id = ?")) {
+            ps.setString(1, crawlerId);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    private StoredRecord read(ResultSet rs, int column) throws SQLException {
+        try {
+            return new StoredRecord(
+                rs.getString(column),
+                rs.getString(column + 1),
+                rs.getString(column + 2),
+                rs.getString(column + 3),
+                rs.getTimestamp(column + 4).toInstant(),
+                objectMapper.readValue(rs.getString(column + 5), MAP_TYPE));
+        } catch (JsonProcessingException e) {
+            throw new SQLException("Corrupt record data for " + rs.getString(column) + "/" + rs.getString(column + 1), e);
+        }
+    }
+
+    private String stringOrNull(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.warn("Failed to close record store: {}", e.getMessage());
+        }
+    }
+}
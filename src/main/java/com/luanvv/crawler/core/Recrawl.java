@@ -0,0 +1,140 @@
+package com.luanvv.crawler.core;
+
+import com.luanvv.crawler.CliArgs;
+import com.microsoft.playwright.Page;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+
+// Repeats only what the last run dead-lettered. Records are written under the same names and ids as a full run,
+// so JSON/CSV files are replaced and the record store is upserted in place.
+@Slf4j
+public class Recrawl {
+
+    public static void run(CliArgs args) throws Exception {
+        if (args.getPositional().isEmpty()) {
+            log.error("Usage: recrawl <config.yaml> [--file dead-letters.jsonl]");
+            return;
+        }
+        Config config = Config.load(args.getPositional().get(0));
+        Path file = args.has("file") ? Paths.get(args.get("file", null)) : DeadLetters.path(config);
+        if (file == null || !Files.exists(file)) {
+            log.info("No dead letters to re-crawl at {}", file);
+            return;
+        }
+        List<DeadLetters.Entry> entries = DeadLetters.read(file);
+        if (entries.isEmpty()) {
+            log.info("Dead letter file {} is empty, nothing to re-crawl", file);
+            return;
+        }
+        // Set aside so failures of this run start a fresh file instead of mixing with the ones being retried
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Path retried = file.resolveSibling(file.getFileName() + "." + stamp + ".retried");
+        Files.move(file, retried);
+        log.info("Re-crawling {} dead letters from {}", entries.size(), retried);
+
+        // The browser is only started when there are pages to visit; assets are fetched without it
+        try (BrowserSession session = new BrowserSession(config)) {
+            recrawl(config, session, entries);
+        }
+    }
+
+    private static void recrawl(Config config, BrowserSession session, List<DeadLetters.Entry> entries)
+        throws Exception {
+        // Several fields of one page fail together; the page only needs to be visited once
+        Map<String, DeadLetters.Entry> lists = new LinkedHashMap<>();
+        Map<String, DeadLetters.Entry> details = new LinkedHashMap<>();
+        Map<String, DeadLetters.Entry> assets = new LinkedHashMap<>();
+        for (DeadLetters.Entry entry : entries) {
+            switch (entry.kind()) {
+                case DeadLetters.LIST -> lists.putIfAbsent(entry.crawlerId() + "|" + entry.url() + "|" + entry.pageNumber()
+                    + "|" + entry.parentId(), entry);
+                case DeadLetters.DETAIL -> details.putIfAbsent(entry.crawlerId() + "|" + entry.url() + "|" + entry.parentId(), entry);
+                case DeadLetters.ASSET -> {
+                    if (entry.path() != null) {
+                        assets.putIfAbsent(entry.path(), entry);
+                    } else {
+                        log.warn("Asset {} failed before it had a file name; re-crawl its page instead", entry.url());
+                    }
+                }
+                default -> log.warn("Unknown dead letter kind '{}'", entry.kind());
+            }
+        }
+        log.info("Re-crawl plan: {} list pages, {} detail pages, {} assets", lists.size(), details.size(), assets.size());
+
+        AccountPool accounts = new AccountPool(config);
+        LoginManager loginManager = accounts.primary().getLoginManager();
+        RateLimiter limiter = accounts.primary().getLimiter();
+        Retryer retryer = new Retryer(config.getRetries());
+        try (OutputWriters writers = new OutputWriters(config.getOutput());
+            DeadLetters deadLetters = DeadLetters.open(config);
+            CrawlPipeline pipeline = new CrawlPipeline(config, writers, accounts, retryer)
+        ) {
+            Extractor extractor = new Extractor(config, config.getOutput().getDir(), pipeline.assetSink());
+            extractor.setDeadLetters(deadLetters);
+            if (!lists.isEmpty() || !details.isEmpty()) {
+                session.start();
+                Page page = session.getPage();
+                boolean loginOk = retryer.runWithRetry("login", () -> {
+                    if (loginManager.ensureLoggedIn(page)) return true;
+                    throw new RuntimeException("login failed");
+                });
+                if (!loginOk) throw new RuntimeException("Cannot login");
+                accounts.setStorageState(accounts.primary(), session.storageState());
+            }
+            pipeline.start(extractor);
+            extractor.verifyAssets();
+
+            for (DeadLetters.Entry entry : assets.values()) {
+                // Usually already queued by verifyAssets(); otherwise it resumes from its .part file
+                Path path = Paths.get(entry.path());
+                if (!extractor.queueAsset(path)) continue;
+                pipeline.assetSink().submit(new Extractor.AssetTask(URI.create(entry.url()).toURL(), path));
+            }
+            for (DeadLetters.Entry entry : details.values()) {
+                Config.CrawlerConfig crawlerCfg = config.findCrawlerById(entry.crawlerId());
+                if (crawlerCfg == null) {
+                    log.warn("Crawler '{}' is no longer in the config, skipping {}", entry.crawlerId(), entry.url());
+                    continue;
+                }
+                pipeline.submitDetail(crawlerCfg, entry.url(), entry.parentId());
+            }
+            ListCrawler listCrawler = new ListCrawler(config, limiter, retryer, extractor, loginManager);
+            // Only the rows are rewritten; their detail pages did not fail and are left alone
+            listCrawler.setRowHandler(row -> pipeline.recordSink()
+                .write(row.crawlerCfg(), ListCrawler.listRecordName(row), row.uniqueId(), row.record()));
+            for (DeadLetters.Entry entry : lists.values()) {
+                Config.CrawlerConfig crawlerCfg = config.findCrawlerById(entry.crawlerId());
+                if (crawlerCfg == null) {
+                    log.warn("Crawler '{}' is no longer in the config, skipping {}", entry.crawlerId(), entry.url());
+                    continue;
+                }
+                listCrawler.setCrawlerLimiter(pipeline.limiter(crawlerCfg));
+                recrawlListPage(session, listCrawler, crawlerCfg, entry, pipeline, extractor);
+            }
+        }
+        log.info("Re-crawl completed");
+    }
+
+    private static void recrawlListPage(BrowserSession session, ListCrawler listCrawler,
+                                        Config.CrawlerConfig crawlerCfg, DeadLetters.Entry entry,
+                                        CrawlPipeline pipeline, Extractor extractor) {
+        int pageNumber = entry.pageNumber() != null ? entry.pageNumber() : 1;
+        try {
+            log.info("Re-crawl list page {} of {}", pageNumber, entry.url());
+            listCrawler.crawlPage(session, crawlerCfg, pipeline.recordSink(), entry.url(), entry.parentId(),
+                pageNumber);
+        } catch (Exception e) {
+            log.error("Failed to re-crawl list page {} of {}: {}", pageNumber, entry.url(), e.getMessage());
+            extractor.deadLetter(DeadLetters.Entry.of(DeadLetters.LIST, crawlerCfg, entry.url(), entry.parentId(),
+                pageNumber).failed(null, e));
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.luanvv.crawler.core;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+// Where a budget-stopped run left off: per crawler the next list page or that it finished, plus the detail pages
+// and assets that were queued but deferred. The next run starts from there; a run that gets through everything
+// deletes the file, so the one after starts a fresh cycle.
+@Slf4j
+public class ResumeFile {
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+        .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    @Data
+    public static class State {
+        private String time;
+        private String reason;
+        private Map<String, Integer> nextPage = new LinkedHashMap<>(); // crawler id -> list page to start from
+        private List<String> done = new ArrayList<>(); // crawlers finished in an earlier run of this cycle
+        private List<DeadLetters.Entry> pending = new ArrayList<>();
+    }
+
+    private final Path path;
+    private final State previous;
+    private final State next = new State();
+
+    // Whether an earlier run of this cycle left a resume point
+    private final boolean resuming;
+
+    private ResumeFile(Path path, State previous, boolean resuming) {
+        this.path = path;
+        this.previous = previous;
+        this.resuming = resuming;
+    }
+
+    // Returns null when the config has no budget
+    public static ResumeFile load(Config config) throws IOException {
+        Config.Budget budget = config.getBudget();
+        if (budget == null || budget.getResumeFile() == null || budget.getResumeFile().isBlank()) return null;
+        Path path = Paths.get(config.getOutput().getDir()).resolve(budget.getResumeFile());
+        State previous = new State();
+        boolean resuming = Files.exists(path);
+        if (resuming) {
+            previous = MAPPER.readValue(path.toFile(), State.class);
+            log.info("Resuming from {}: {} crawlers done, next pages {}, {} deferred tasks (stopped by {})", path,
+                previous.getDone().size(), previous.getNextPage(), previous.getPending().size(), previous.getReason());
+        }
+        return new ResumeFile(path, previous, resuming);
+    }
+
+    public boolean isResuming() {
+        return resuming;
+    }
+
+    public boolean isDone(Config.CrawlerConfig crawlerCfg) {
+        boolean done = previous.getDone().contains(crawlerCfg.getId());
+        if (done) next.getDone().add(crawlerCfg.getId());
+        return done;
+    }
+
+    public int startPage(Config.CrawlerConfig crawlerCfg) {
+        Integer page = previous.getNextPage().get(crawlerCfg.getId());
+        return page != null ? page : crawlerCfg.getProperties().getStartPage();
+    }
+
+    public List<DeadLetters.Entry> pending() {
+        return previous.getPending();
+    }
+
+    public void stopped(Config.CrawlerConfig crawlerCfg, int nextPage) {
+        next.getNextPage().put(crawlerCfg.getId(), nextPage);
+    }
+
+    public void finished(Config.CrawlerConfig crawlerCfg) {
+        next.getDone().add(crawlerCfg.getId());
+    }
+
+    // Crawlers the budget never reached are in neither list and start over next time, from their resume page
+    public void save(Config config, RunBudget budget) throws IOException {
+        next.setPending(budget.deferred());
+        boolean complete = next.getPending().isEmpty() && config.getCrawlers().stream()
+            .allMatch(c -> next.getDone().contains(c.getId()));
+        if (complete) {
+            if (Files.deleteIfExists(path)) log.info("Crawl cycle complete, removed {}", path);
+            return;
+        }
+        for (Map.Entry<String, Integer> e : previous.getNextPage().entrySet()) {
+            // Not reached in this run: keep the old resume point rather than going back to the start
+            if (!next.getDone().contains(e.getKey())) next.getNextPage().putIfAbsent(e.getKey(), e.getValue());
+        }
+        next.setTime(Instant.now().toString());
+        next.setReason(budget.getReason());
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        MAPPER.writerWithDefaultPrettyPrinter().writeValue(tmp.toFile(), next);
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("Run stopped by budget ({}); resume point written to {}: next pages {}, {} deferred tasks",
+            budget.getReason(), path, next.getNextPage(), next.getPending().size());
+    }
+}
@@ -1,6 +1,8 @@
 package com.luanvv.crawler.core;
 
+import com.luanvv.crawler.jfr.RetryEvent;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -8,6 +10,12 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 public class Retryer {
     private final Config.Retries cfg;
+    private final AtomicLong failures = new AtomicLong();
+
+    // Failed attempts so far, including ones that later succeeded on retry
+    public long failureCount() {
+        return failures.get();
+    }
 
     public <T> T runWithRetry(String opName, Callable<T> callable) throws Exception {
         long delay = Math.max(100, cfg.getBackoffMs());
@@ -19,9 +27,17 @@ public class Retryer {
                 return callable.call();
             } catch (Exception e) {
                 last = e;
+                failures.incrementAndGet();
                 log.warn("{} failed on attempt {}/{}: {}", opName, attempts, cfg.getMaxAttempts(), e.toString());
+                RetryEvent event = RetryEvent.start();
+                if (attempts < cfg.getMaxAttempts()) Thread.sleep(delay);
+                if (event != null) {
+                    event.operation = opName;
+                    event.attempt = attempts;
+                    event.error = e.getClass().getSimpleName();
+                    event.commit();
+                }
                 if (attempts >= cfg.getMaxAttempts()) break;
-                Thread.sleep(delay);
                 delay = Math.min(cfg.getMaxBackoffMs(), delay * 2);
             }
         }
@@ -0,0 +1,131 @@
+package com.luanvv.crawler.core;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+
+// Limits for one run: a deadline and caps on pages, records and downloaded bytes. Once any of them is reached no
+// new page is started; the pipeline gives in-flight work graceMs to finish and defers the rest to the resume file.
+@Slf4j
+public class RunBudget {
+    private final Config.Budget cfg;
+    private final Long deadlineMillis;
+    private final AtomicLong pages = new AtomicLong();
+    private final AtomicLong items = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final List<DeadLetters.Entry> deferred = new ArrayList<>();
+    private volatile String reason;
+    private volatile long exhaustedAt;
+
+    // cfg may be null, which never runs out
+    public RunBudget(Config.Budget cfg) {
+        this.cfg = cfg;
+        this.deadlineMillis = cfg != null ? deadline(cfg, System.currentTimeMillis()) : null;
+        if (deadlineMillis != null) log.info("Run budget deadline is {}", Instant.ofEpochMilli(deadlineMillis));
+    }
+
+    public static RunBudget unlimited() {
+        return new RunBudget(null);
+    }
+
+    // The earlier of `deadline` and start + maxDurationMs
+    static Long deadline(Config.Budget cfg, long now) {
+        Long deadline = cfg.getMaxDurationMs() > 0 ? now + cfg.getMaxDurationMs() : null;
+        String text = cfg.getDeadline();
+        if (text == null || text.isBlank()) return deadline;
+        long at = parseDeadline(text.trim(), now);
+        return deadline == null ? at : Math.min(deadline, at);
+    }
+
+    private static long parseDeadline(String text, long now) {
+        ZoneId zone = ZoneId.systemDefault();
+        try {
+            if (text.length() <= 8) {
+                // A time of day is the next one to come, so a nightly window started after midnight still works
+                LocalDateTime start = LocalDateTime.ofInstant(Instant.ofEpochMilli(now), zone);
+                LocalDateTime at = start.toLocalDate().atTime(LocalTime.parse(text));
+                if (!at.isAfter(start)) at = at.plusDays(1);
+                return at.atZone(zone).toInstant().toEpochMilli();
+            }
+            try {
+                return OffsetDateTime.parse(text).toInstant().toEpochMilli();
+            } catch (DateTimeParseException e) {
+                return LocalDateTime.parse(text).atZone(zone).toInstant().toEpochMilli();
+            }
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid budget.deadline '" + text + "', expected HH:mm or an ISO date-time", e);
+        }
+    }
+
+    public boolean isExhausted() {
+        if (reason != null) return true;
+        if (cfg == null) return false;
+        String hit = check();
+        if (hit == null) return false;
+        exhaust(hit);
+        return true;
+    }
+
+    private String check() {
+        if (deadlineMillis != null && System.currentTimeMillis() >= deadlineMillis) {
+            return "deadline " + Instant.ofEpochMilli(deadlineMillis);
+        }
+        if (cfg.getMaxPages() > 0 && pages.get() >= cfg.getMaxPages()) return "maxPages " + cfg.getMaxPages();
+        if (cfg.getMaxItems() > 0 && items.get() >= cfg.getMaxItems()) return "maxItems " + cfg.getMaxItems();
+        if (cfg.getMaxBytes() > 0 && bytes.get() >= cfg.getMaxBytes()) return "maxBytes " + cfg.getMaxBytes();
+        return null;
+    }
+
+    private synchronized void exhaust(String hit) {
+        if (reason != null) return;
+        exhaustedAt = System.currentTimeMillis();
+        reason = hit;
+        log.warn("Run budget reached ({}) after {}; no new pages are started, in-flight work has {} ms to finish",
+            hit, summary(), cfg.getGraceMs());
+    }
+
+    public String getReason() {
+        isExhausted();
+        return reason;
+    }
+
+    public void pageDone() {
+        pages.incrementAndGet();
+    }
+
+    public void itemWritten() {
+        items.incrementAndGet();
+    }
+
+    public void bytesDownloaded(long count) {
+        bytes.addAndGet(count);
+    }
+
+    // When closing the pipeline should stop waiting for in-flight work; null waits for all of it
+    public Long drainBy() {
+        if (cfg == null) return null;
+        if (isExhausted()) return exhaustedAt + cfg.getGraceMs();
+        if (deadlineMillis != null) return Math.max(deadlineMillis, System.currentTimeMillis()) + cfg.getGraceMs();
+        return null;
+    }
+
+    // Work that was queued but not started because of the budget; the next run picks it up first
+    public synchronized void defer(DeadLetters.Entry entry) {
+        deferred.add(entry);
+    }
+
+    public synchronized List<DeadLetters.Entry> deferred() {
+        return List.copyOf(deferred);
+    }
+
+    public String summary() {
+        return pages.get() + " pages, " + items.get() + " items, " + bytes.get() + " bytes";
+    }
+}
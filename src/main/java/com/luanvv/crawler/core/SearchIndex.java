@@ -0,0 +1,250 @@
+package com.luanvv.crawler.core;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.luanvv.crawler.CliArgs;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.charfilter.HTMLStripCharFilter;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.LockObtainFailedException;
+
+// Lucene index over every record OutputWriters emits, one document per crawler id and unique key, replaced when the
+// record is written again. Text is HTML-stripped, lower-cased and folded to ASCII with the original kept, so
+// "ao thun" finds "Áo thun" while "áo" still ranks exact matches first. All text also goes to `_all`, the default
+// field; `_crawler`, `_id` and `_parentId` are exact-match fields.
+@Slf4j
+public class SearchIndex implements AutoCloseable {
+    public static final String KEY = "_key";
+    public static final String CRAWLER = "_crawler";
+    public static final String ID = "_id";
+    public static final String PARENT_ID = "_parentId";
+    public static final String ALL = "_all";
+    private static final String SOURCE = "_source";
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
+    public record Hit(String crawlerId, String id, float score, Map<String, Object> record) {}
+
+    private final Directory directory;
+    private final IndexWriter writer;
+    private final SearcherManager searchers;
+    private final Config.Search cfg;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong pending = new AtomicLong();
+
+    private SearchIndex(Path dir, Config.Search cfg, boolean writable) throws IOException {
+        this.cfg = cfg;
+        this.directory = FSDirectory.open(dir);
+        if (writable) {
+            try {
+                this.writer = new IndexWriter(directory, new IndexWriterConfig(analyzer())
+                    .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+            } catch (IOException e) {
+                directory.close();
+                throw e;
+            }
+            // A new index has no commit until then, and `search` in another process needs one to open
+            writer.commit();
+            this.searchers = new SearcherManager(writer, null);
+        } else {
+            this.writer = null;
+            this.searchers = new SearcherManager(directory, null);
+        }
+    }
+
+    // Opened by OutputWriters for the crawl. Only one process can write an index at a time; when another one holds
+    // it, this process skips indexing rather than failing to start.
+    public static SearchIndex open(Config.Output output) throws IOException {
+        Path dir = dir(output);
+        Files.createDirectories(dir);
+        try {
+            SearchIndex index = new SearchIndex(dir, output.getSearch(), true);
+            log.info("Opened search index {}", dir);
+            return index;
+        } catch (LockObtainFailedException e) {
+            log.warn("Search index {} is locked by another process, records of this one are not indexed; "
+                + "give each process its own output.search.dir", dir);
+            return null;
+        }
+    }
+
+    // Reads the last commit, so it works while a crawl holds the writer
+    public static SearchIndex openReadOnly(Config.Output output) throws IOException {
+        Path dir = dir(output);
+        if (!Files.isDirectory(dir)) throw new IOException("No search index in " + dir);
+        try (Directory existing = FSDirectory.open(dir)) {
+            if (!DirectoryReader.indexExists(existing)) {
+                throw new IOException("No search index in " + dir + "; enable output.search and crawl first");
+            }
+        }
+        return new SearchIndex(dir, output.getSearch(), false);
+    }
+
+    private static Path dir(Config.Output output) {
+        return Path.of(output.getDir()).resolve(output.getSearch().getDir());
+    }
+
+    static Analyzer analyzer() {
+        return new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(String fieldName) {
+                Tokenizer source = new StandardTokenizer();
+                TokenStream stream = new LowerCaseFilter(source);
+                // preserveOriginal keeps "áo" next to "ao", so accented queries still prefer accented text
+                stream = new ASCIIFoldingFilter(stream, true);
+                return new TokenStreamComponents(source, stream);
+            }
+
+            @Override
+            protected Reader initReader(String fieldName, Reader reader) {
+                return new HTMLStripCharFilter(reader);
+            }
+        };
+    }
+
+    public void index(String crawlerId, String id, Map<String, Object> record) {
+        Document doc = new Document();
+        String key = crawlerId + "/" + id;
+        doc.add(new StringField(KEY, key, Field.Store.NO));
+        doc.add(new StringField(CRAWLER, crawlerId, Field.Store.YES));
+        doc.add(new StringField(ID, id, Field.Store.YES));
+        Object parentId = record.get(PARENT_ID);
+        if (parentId != null) doc.add(new StringField(PARENT_ID, parentId.toString(), Field.Store.YES));
+        for (Map.Entry<String, Object> e : record.entrySet()) {
+            if (e.getKey().startsWith("_") || !indexed(e.getKey())) continue;
+            String text = text(e.getValue());
+            if (text == null || text.isBlank()) continue;
+            doc.add(new TextField(e.getKey(), text, Field.Store.NO));
+            doc.add(new TextField(ALL, text, Field.Store.NO));
+        }
+        try {
+            doc.add(new StoredField(SOURCE, objectMapper.writeValueAsString(record)));
+            writer.updateDocument(new Term(KEY, key), doc);
+            if (cfg.getCommitEvery() > 0 && pending.incrementAndGet() % cfg.getCommitEvery() == 0) {
+                writer.commit();
+            }
+        } catch (IOException e) {
+            log.error("Failed to index record {}", key, e);
+        }
+    }
+
+    private boolean indexed(String field) {
+        return cfg.getFields() == null || cfg.getFields().contains(field);
+    }
+
+    // Scalars and lists of them; nested maps such as image variants are paths, not text
+    private static String text(Object value) {
+        if (value == null || value instanceof Map<?, ?>) return null;
+        if (value instanceof List<?> list) {
+            return nfc(String.join("\n", list.stream().filter(v -> !(v instanceof Map<?, ?>)).map(String::valueOf).toList()));
+        }
+        return nfc(String.valueOf(value));
+    }
+
+    // Vietnamese text arrives both precomposed and with combining marks; fold both to one form before tokenizing
+    private static String nfc(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFC);
+    }
+
+    // query uses Lucene's classic syntax against `_all`, e.g. `áo thun`, `"áo thun"`, `Tên:áo AND _crawler:products`
+    public List<Hit> search(String query, String crawlerId, int limit) throws IOException, ParseException {
+        Query parsed = new QueryParser(ALL, analyzer()).parse(nfc(query));
+        if (crawlerId != null) {
+            parsed = new BooleanQuery.Builder()
+                .add(parsed, BooleanClause.Occur.MUST)
+                .add(new TermQuery(new Term(CRAWLER, crawlerId)), BooleanClause.Occur.FILTER)
+                .build();
+        }
+        searchers.maybeRefresh();
+        IndexSearcher searcher = searchers.acquire();
+        try {
+            TopDocs top = searcher.search(parsed, limit);
+            List<Hit> hits = new ArrayList<>();
+            for (ScoreDoc sd : top.scoreDocs) {
+                Document doc = searcher.storedFields().document(sd.doc);
+                hits.add(new Hit(doc.get(CRAWLER), doc.get(ID), sd.score,
+                    objectMapper.readValue(doc.get(SOURCE), MAP_TYPE)));
+            }
+            return hits;
+        } finally {
+            searchers.release(searcher);
+        }
+    }
+
+    public int count() throws IOException {
+        searchers.maybeRefresh();
+        IndexSearcher searcher = searchers.acquire();
+        try {
+            return searcher.getIndexReader().numDocs();
+        } finally {
+            searchers.release(searcher);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            searchers.close();
+            if (writer != null) writer.close();
+            directory.close();
+        } catch (IOException e) {
+            log.error("Failed to close search index", e);
+        }
+    }
+
+    // `search <config.yaml> <query> [--crawler id] [--limit 20]`
+    public static void run(CliArgs args) throws Exception {
+        if (args.getPositional().size() < 2) {
+            log.error("Usage: search <config.yaml> <query> [--crawler id] [--limit 20]");
+            return;
+        }
+        Config config = Config.load(args.getPositional().get(0));
+        if (config.getOutput().getSearch() == null) config.getOutput().setSearch(new Config.Search());
+        String query = String.join(" ", args.getPositional().subList(1, args.getPositional().size()));
+        try (SearchIndex index = openReadOnly(config.getOutput())) {
+            long start = System.nanoTime();
+            List<Hit> hits = index.search(query, args.get("crawler", null), args.getInt("limit", 20));
+            long micros = (System.nanoTime() - start) / 1000;
+            log.info("{} hits for '{}' in {} docs, {} ms", hits.size(), query, index.count(), micros / 1000.0);
+            ObjectMapper mapper = new ObjectMapper();
+            for (Hit hit : hits) {
+                log.info("{} {}/{} {}", String.format("%.3f", hit.score()), hit.crawlerId(), hit.id(),
+                    mapper.writeValueAsString(hit.record()));
+            }
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package com.luanvv.crawler.core;
+
+import com.luanvv.crawler.CliArgs;
+import com.microsoft.playwright.Locator;
+import com.microsoft.playwright.Page;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+
+// `analyze`: loads a few list and detail pages, reads every field the way Extractor does (without downloading),
+// and reports time, round trips, matches and suggestions ranked by estimated time saved per 10k pages
+@Slf4j
+public class SelectorAnalyzer {
+    private static final int PAGES_PER_ESTIMATE = 10_000;
+    // Playwright's default; a read of an element that isn't there waits this long before failing
+    private static final long DEFAULT_TIMEOUT_MS = 30_000;
+    private static final Pattern POSITIONAL = Pattern.compile(":nth-(child|of-type|last-child)|:(first|last)-child");
+
+    // Stable selectors for the element, each checked to match only that element inside the root
+    private static final String CANDIDATES_JS = """
+        (el, root) => {
+          const esc = CSS.escape;
+          const tag = el.tagName.toLowerCase();
+          const unique = sel => {
+            try { const m = root.querySelectorAll(sel); return m.length === 1 && m[0] === el; } catch (e) { return false; }
+          };
+          const out = [];
+          if (el.id && unique('#' + esc(el.id))) out.push('#' + esc(el.id));
+          const name = el.getAttribute('name');
+          if (name && unique(tag + '[name="' + name + '"]')) out.push(tag + '[name="' + name + '"]');
+          for (const c of el.classList) {
+            if (unique(tag + '.' + esc(c))) { out.push(tag + '.' + esc(c)); break; }
+          }
+          let a = el.parentElement;
+          while (a && a !== root && !a.id) a = a.parentElement;
+          if (a && a !== root && unique('#' + esc(a.id) + ' ' + tag)) out.push('#' + esc(a.id) + ' ' + tag);
+          return out;
+        }
+        """;
+
+    static class FieldStats {
+        final String crawlerId;
+        final Config.Field field;
+        double occurrencesPerPage = 1;
+        int samples;
+        long nanos;
+        long roundTrips;
+        long matches;
+        int missing;
+        int ambiguous;
+        final Map<String, Integer> candidates = new LinkedHashMap<>();
+
+        FieldStats(String crawlerId, Config.Field field) {
+            this.crawlerId = crawlerId;
+            this.field = field;
+        }
+
+        double avgMillis() {
+            return samples == 0 ? 0 : nanos / 1e6 / samples;
+        }
+
+        double avgTrips() {
+            return samples == 0 ? 0 : (double) roundTrips / samples;
+        }
+
+        String name() {
+            return crawlerId + "." + field.getId() + " (" + field.getType() + ")";
+        }
+    }
+
+    record Suggestion(String target, String advice, double savedMillisPer10k) {}
+
+    private final Config config;
+    private final Map<String, FieldStats> stats = new LinkedHashMap<>();
+    private final List<Double> roundTripMillis = new ArrayList<>();
+    private final int pages;
+    private final int itemsPerPage;
+    private final int details;
+
+    public SelectorAnalyzer(Config config, int pages, int itemsPerPage, int details) {
+        this.config = config;
+        this.pages = pages;
+        this.itemsPerPage = itemsPerPage;
+        this.details = details;
+    }
+
+    public static void run(CliArgs args) throws Exception {
+        if (args.getPositional().isEmpty()) {
+            log.error("Usage: analyze <config.yaml> [--pages 2] [--items 10] [--details 5] [--top 20]");
+            return;
+        }
+        Config config = Config.load(args.getPositional().get(0));
+        SelectorAnalyzer analyzer = new SelectorAnalyzer(config, args.getInt("pages", 2), args.getInt("items", 10),
+            args.getInt("details", 5));
+        try (BrowserSession session = new BrowserSession(config)) {
+            session.start();
+            analyzer.sample(session);
+        }
+        analyzer.print(System.out, args.getInt("top", 20));
+    }
+
+    public void sample(BrowserSession session) throws Exception {
+        RateLimiter limiter = RateLimiter.of(config);
+        Retryer retryer = new Retryer(config.getRetries());
+        LoginManager loginManager = new LoginManager(config);
+        if (!loginManager.ensureLoggedIn(session.getPage())) throw new RuntimeException("Cannot login");
+
+        Map<Config.CrawlerConfig, List<String>> detailUrls = new LinkedHashMap<>();
+        for (Config.CrawlerConfig crawlerCfg : config.getCrawlers()) {
+            if (!"list".equalsIgnoreCase(crawlerCfg.getType()) || XhrSource.isXhr(crawlerCfg)) continue;
+            // Only pagination is used, which never touches the extractor
+            ListCrawler listCrawler = new ListCrawler(config, limiter, retryer, null, loginManager);
+            int[] items = {0, 0};
+            listCrawler.paginate(session, crawlerCfg, (pageNumber, url) -> {
+                items[0] += sampleListPage(session.getPage(), crawlerCfg, detailUrls);
+                items[1]++;
+                if (items[1] >= pages) listCrawler.stopAfterPage();
+            });
+            double perPage = items[1] == 0 ? 1 : (double) items[0] / items[1];
+            stats.values().stream()
+                .filter(s -> s.crawlerId.equals(crawlerCfg.getId()))
+                .forEach(s -> s.occurrencesPerPage = perPage);
+        }
+        for (Config.CrawlerConfig crawlerCfg : config.getCrawlers()) {
+            if (!"detail".equalsIgnoreCase(crawlerCfg.getType()) || XhrSource.isXhr(crawlerCfg)) continue;
+            List<String> urls = new ArrayList<>(detailUrls.getOrDefault(crawlerCfg, List.of()));
+            if (urls.isEmpty() && crawlerCfg.getUrl() != null && !crawlerCfg.getUrl().isBlank()) {
+                urls.add(config.getBaseUrl() + crawlerCfg.getUrl());
+            }
+            for (String url : urls) {
+                limiter.acquire();
+                Page page = session.getPage();
+                log.info("Analyze detail: {}", url);
+                page.navigate(url);
+                page.waitForLoadState();
+                measureRoundTrip(page);
+                String rootSelector = crawlerCfg.getRootSelector();
+                Locator root = rootSelector != null && !rootSelector.isBlank()
+                    ? page.locator(rootSelector).first()
+                    : page.locator("body").first();
+                measureFields(page, crawlerCfg, root);
+            }
+        }
+    }
+
+    private int sampleListPage(Page page, Config.CrawlerConfig crawlerCfg,
+                               Map<Config.CrawlerConfig, List<String>> detailUrls) {
+        Config.Properties props = crawlerCfg.getProperties();
+        if (props == null || props.getItemSelectors() == null) return 0;
+        measureRoundTrip(page);
+        String itemSelector = crawlerCfg.getRootSelector() != null
+            ? crawlerCfg.getRootSelector() + " " + props.getItemSelectors()
+            : props.getItemSelectors();
+        List<Locator> items = page.locator(itemSelector).all();
+        Config.CrawlerConfig detailCfg = props.getCrawlId() != null ? config.findCrawlerById(props.getCrawlId()) : null;
+        for (int i = 0; i < Math.min(itemsPerPage, items.size()); i++) {
+            Locator item = items.get(i);
+            measureFields(page, crawlerCfg, item);
+            if (detailCfg != null && props.getDetailLinkSelector() != null) {
+                List<String> urls = detailUrls.computeIfAbsent(detailCfg, k -> new ArrayList<>());
+                Locator link = item.locator(props.getDetailLinkSelector()).first();
+                if (urls.size() < details && link.count() > 0) {
+                    String href = link.getAttribute("href");
+                    if (href != null && !href.isBlank()) urls.add(UrlUtils.toAbsolute(config.getBaseUrl(), href).toString());
+                }
+            }
+        }
+        return items.size();
+    }
+
+    private void measureRoundTrip(Page page) {
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            page.evaluate("1");
+            roundTripMillis.add((System.nanoTime() - start) / 1e6);
+        }
+    }
+
+    private void measureFields(Page page, Config.CrawlerConfig crawlerCfg, Locator root) {
+        if (crawlerCfg.getFields() == null) return;
+        for (Config.Field field : crawlerCfg.getFields()) {
+            if (field.getSelector() == null) continue;
+            FieldStats s = stats.computeIfAbsent(crawlerCfg.getId() + "." + field.getId(),
+                k -> new FieldStats(crawlerCfg.getId(), field));
+            try {
+                measure(root, field, s);
+            } catch (Exception e) {
+                log.warn("Could not analyze field '{}': {}", field.getId(), e.getMessage());
+            }
+        }
+    }
+
+    // Mirrors Extractor.extractFromLocator call for call, minus downloads
+    private void measure(Locator root, Config.Field field, FieldStats s) {
+        Locator matches = root.locator(field.getSelector());
+        int count = matches.count();
+        s.samples++;
+        s.matches += count;
+        if (count == 0) {
+            s.missing++;
+            return;
+        }
+        if (count > 1 && !field.isMultiple()) s.ambiguous++;
+        Locator first = matches.first();
+        String type = field.getType() != null ? field.getType() : "text";
+        long start = System.nanoTime();
+        int trips;
+        if ("image".equals(type) && field.isMultiple()) {
+            List<Locator> all = matches.all();
+            all.forEach(l -> l.getAttribute("src"));
+            trips = 1 + all.size();
+        } else {
+            trips = switch (type) {
+                case "text", "html" -> {
+                    first.evaluate("e => e.tagName");
+                    first.innerText();
+                    yield 2;
+                }
+                case "select" -> {
+                    Locator selected = first.locator("option:checked");
+                    if (selected.count() > 0) selected.first().innerText();
+                    yield 2;
+                }
+                case "checkbox" -> {
+                    first.isChecked();
+                    yield 1;
+                }
+                case "boolean" -> {
+                    int checks = 0;
+                    if (field.getValues() != null) {
+                        for (Config.BooleanValue value : field.getValues()) {
+                            first.locator(value.getValue()).count();
+                            checks++;
+                        }
+                    }
+                    yield Math.max(1, checks);
+                }
+                case "image" -> {
+                    first.getAttribute("src");
+                    yield 1;
+                }
+                default -> {
+                    first.innerText();
+                    yield 1;
+                }
+            };
+        }
+        s.nanos += System.nanoTime() - start;
+        s.roundTrips += trips;
+        if (POSITIONAL.matcher(field.getSelector()).find() || count > 1) {
+            @SuppressWarnings("unchecked")
+            List<String> found = (List<String>) first.evaluate(CANDIDATES_JS, root.elementHandle());
+            found.forEach(c -> s.candidates.merge(c, 1, Integer::sum));
+        }
+    }
+
+    private double medianRoundTrip() {
+        if (roundTripMillis.isEmpty()) return 1;
+        List<Double> sorted = roundTripMillis.stream().sorted().toList();
+        return sorted.get(sorted.size() / 2);
+    }
+
+    List<Suggestion> suggestions() {
+        double rtt = medianRoundTrip();
+        List<Suggestion> out = new ArrayList<>();
+        Map<String, List<FieldStats>> byCrawler = new LinkedHashMap<>();
+        for (FieldStats s : stats.values()) {
+            if (s.samples == 0) continue;
+            byCrawler.computeIfAbsent(s.crawlerId, k -> new ArrayList<>()).add(s);
+            double perPage = s.occurrencesPerPage * PAGES_PER_ESTIMATE;
+            double missRate = (double) s.missing / s.samples;
+            if (s.missing > 0 && !"boolean".equals(s.field.getType())
+                && !("image".equals(s.field.getType()) && s.field.isMultiple())) {
+                out.add(new Suggestion(s.name(), String.format(
+                    "matched nothing on %d of %d samples; each miss waits %d ms for the timeout. Fix or drop `%s`",
+                    s.missing, s.samples, DEFAULT_TIMEOUT_MS, s.field.getSelector()),
+                    missRate * DEFAULT_TIMEOUT_MS * perPage));
+            }
+            int values = s.field.getValues() != null ? s.field.getValues().size() : 0;
+            if ("boolean".equals(s.field.getType()) && values > 1) {
+                String merged = ":is(" + String.join(", ", s.field.getValues().stream()
+                    .map(Config.BooleanValue::getValue).toList()) + ")";
+                out.add(new Suggestion(s.name(), String.format(
+                    "%d count() calls per read; one check of %s (or one evaluate over all values) does the same",
+                    values, merged), (values - 1) * rtt * perPage));
+            }
+            int matched = s.samples - s.missing;
+            String stable = s.candidates.entrySet().stream()
+                .filter(e -> e.getValue() >= matched)
+                .map(Map.Entry::getKey)
+                .findFirst()
+                .orElse(null);
+            if (s.ambiguous > 0) {
+                out.add(new Suggestion(s.name(), String.format(
+                    "`%s` matched %.1f elements on average and only the first is read%s",
+                    s.field.getSelector(), (double) s.matches / Math.max(1, matched),
+                    stable != null ? "; `" + stable + "` matches exactly the one read" : "; narrow it"), 0));
+            } else if (stable != null) {
+                out.add(new Suggestion(s.name(), String.format(
+                    "positional `%s` can be `%s` (same element on every sample, survives layout changes)",
+                    s.field.getSelector(), stable), 0));
+            }
+        }
+        // Reading every field of a row or page in one evaluate costs one round trip instead of one per call
+        for (Map.Entry<String, List<FieldStats>> e : byCrawler.entrySet()) {
+            double trips = e.getValue().stream().mapToDouble(FieldStats::avgTrips).sum();
+            double perPage = e.getValue().get(0).occurrencesPerPage * PAGES_PER_ESTIMATE;
+            if (trips > 1) {
+                out.add(new Suggestion(e.getKey(), String.format(
+                    "%.1f round trips per %s across %d fields; merging the selectors into one evaluate needs 1",
+                    trips, e.getValue().get(0).occurrencesPerPage > 1 ? "row" : "page", e.getValue().size()),
+                    (trips - 1) * rtt * perPage));
+            }
+        }
+        out.sort(Comparator.comparingDouble(Suggestion::savedMillisPer10k).reversed());
+        return out;
+    }
+
+    public void print(PrintStream out, int top) {
+        if (stats.isEmpty()) {
+            out.println("No fields were sampled. Check the crawler URLs and login.");
+            return;
+        }
+        out.printf("Median round trip: %.1f ms%n%n", medianRoundTrip());
+        out.println("Fields, slowest first");
+        out.printf("  %-48s %7s %8s %7s %8s %7s %6s%n", "", "samples", "avg ms", "trips", "matches", "missing", "ambig");
+        stats.values().stream()
+            .filter(s -> s.samples > 0)
+            .sorted(Comparator.comparingDouble((FieldStats s) -> s.avgMillis() * s.occurrencesPerPage).reversed())
+            .limit(top)
+            .forEach(s -> out.printf("  %-48s %7d %8.1f %7.1f %8.1f %7d %6d%n", s.name(), s.samples, s.avgMillis(),
+                s.avgTrips(), (double) s.matches / s.samples, s.missing, s.ambiguous));
+        out.println();
+        List<Suggestion> suggestions = suggestions();
+        if (suggestions.isEmpty()) {
+            out.println("No suggestions.");
+            return;
+        }
+        out.println("Suggestions, by estimated time saved per 10k pages");
+        suggestions.stream().limit(top).forEach(s -> out.printf("  %10s  %-40s %s%n",
+            formatMillis(s.savedMillisPer10k()), s.target(), s.advice()));
+    }
+
+    private static String formatMillis(double millis) {
+        if (millis <= 0) return "-";
+        if (millis >= 3_600_000) return String.format("%.1f h", millis / 3_600_000);
+        if (millis >= 60_000) return String.format("%.1f min", millis / 60_000);
+        return String.format("%.1f s", millis / 1000);
+    }
+}
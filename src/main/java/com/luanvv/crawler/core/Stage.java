@@ -0,0 +1,220 @@
+package com.luanvv.crawler.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+// A bounded queue drained by a fixed set of worker threads; submit() blocks while the queue is full
+@Slf4j
+public class Stage<T> implements AutoCloseable {
+    private static final long POLL_MS = 200;
+    private static final long ABANDON_WAIT_MS = 5000;
+
+    public interface Handler<T> extends AutoCloseable {
+        void handle(T item) throws Exception;
+
+        @Override
+        default void close() {}
+    }
+
+    public record Snapshot(String name, int depth, int capacity, int busy, int workers, long completed, long failed,
+                           double avgMillis, long handleMillis, long blockedMillis) {
+        public double fill() {
+            return capacity == 0 ? 0 : (double) depth / capacity;
+        }
+    }
+
+    @Getter private final String name;
+    private final boolean inline;
+    private volatile int concurrency;
+    private final int capacity;
+    private final BlockingQueue<T> queue;
+    private final Supplier<? extends Handler<T>> handlerFactory;
+    private final List<Thread> workers = new ArrayList<>();
+    private final AtomicInteger busy = new AtomicInteger();
+    private final AtomicInteger live = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong handleNanos = new AtomicLong();
+    private final AtomicLong blockedNanos = new AtomicLong();
+    private Handler<T> inlineHandler;
+    private volatile boolean closed = false;
+    private volatile boolean abandoned = false;
+    private final List<T> abandonedItems = new ArrayList<>();
+    private boolean started = false;
+
+    public Stage(String name, Config.StageConfig cfg, Supplier<? extends Handler<T>> handlerFactory) {
+        this.name = name;
+        this.concurrency = Math.max(0, cfg.getConcurrency());
+        this.inline = concurrency == 0;
+        this.capacity = Math.max(1, cfg.getQueueCapacity());
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.handlerFactory = handlerFactory;
+    }
+
+    public synchronized void start() {
+        started = true;
+        spawnWorkers();
+        log.info("Stage '{}' started with {} workers, queue capacity {}", name, concurrency, capacity);
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    // Grows the stage right away; shrinking lets surplus workers retire after their current item
+    public synchronized void setConcurrency(int target) {
+        if (inline || closed) return;
+        concurrency = Math.max(1, target);
+        if (started) spawnWorkers();
+    }
+
+    private void spawnWorkers() {
+        while (live.get() < concurrency) {
+            live.incrementAndGet();
+            Thread worker = Thread.ofPlatform().name(name + "-" + workers.size()).start(this::workLoop);
+            workers.add(worker);
+        }
+    }
+
+    private boolean retire() {
+        int n = live.get();
+        return n > concurrency && live.compareAndSet(n, n - 1);
+    }
+
+    public void submit(T item) throws InterruptedException {
+        if (closed) throw new IllegalStateException("Stage '" + name + "' is closed");
+        if (inline) {
+            // No workers configured: run on the caller's thread, which is the strongest backpressure there is
+            synchronized (this) {
+                if (inlineHandler == null) inlineHandler = handlerFactory.get();
+                process(inlineHandler, item);
+            }
+            return;
+        }
+        if (!queue.offer(item)) {
+            long start = System.nanoTime();
+            queue.put(item);
+            blockedNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    private void workLoop() {
+        boolean retired = false;
+        try (Handler<T> handler = handlerFactory.get()) {
+            while (!(retired = retire())) {
+                T item = queue.poll(POLL_MS, TimeUnit.MILLISECONDS);
+                if (item == null) {
+                    if (closed) return;
+                    continue;
+                }
+                if (abandoned) {
+                    synchronized (abandonedItems) {
+                        abandonedItems.add(item);
+                    }
+                    return;
+                }
+                process(handler, item);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Stage '{}' worker stopped unexpectedly", name, e);
+        } finally {
+            if (!retired) live.decrementAndGet();
+        }
+    }
+
+    private void process(Handler<T> handler, T item) {
+        busy.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            handler.handle(item);
+            completed.incrementAndGet();
+        } catch (Exception e) {
+            if (abandoned) {
+                // Cut short by drain(), so it goes back with the unstarted items
+                synchronized (abandonedItems) {
+                    abandonedItems.add(item);
+                }
+                log.info("Stage '{}' gave up on {} at the drain deadline", name, item);
+                return;
+            }
+            failed.incrementAndGet();
+            log.error("Stage '{}' failed on {}: {}", name, item, e.toString());
+        } finally {
+            handleNanos.addAndGet(System.nanoTime() - start);
+            busy.decrementAndGet();
+        }
+    }
+
+    public Snapshot snapshot() {
+        long done = completed.get() + failed.get();
+        double avg = done == 0 ? 0 : handleNanos.get() / 1_000_000.0 / done;
+        return new Snapshot(name, queue.size(), capacity, busy.get(), live.get(), completed.get(), failed.get(),
+            avg, handleNanos.get() / 1_000_000, blockedNanos.get() / 1_000_000);
+    }
+
+    // Stops accepting work and waits until everything already queued has been handled
+    @Override
+    public void close() {
+        List<Thread> started;
+        synchronized (this) {
+            closed = true;
+            started = new ArrayList<>(workers);
+        }
+        for (Thread worker : started) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        synchronized (this) {
+            if (inlineHandler != null) inlineHandler.close();
+        }
+    }
+
+    // Like close(), but only waits until deadlineMillis. Items nobody has started are then handed back instead of
+    // handled, and workers still busy are interrupted.
+    public List<T> drain(long deadlineMillis) {
+        List<Thread> started;
+        synchronized (this) {
+            closed = true;
+            started = new ArrayList<>(workers);
+        }
+        try {
+            for (Thread worker : started) {
+                long left = deadlineMillis - System.currentTimeMillis();
+                if (left > 0) worker.join(left);
+            }
+            if (started.stream().anyMatch(Thread::isAlive)) {
+                abandoned = true;
+                log.warn("Stage '{}' did not drain in time, {} items left in its queue", name, queue.size());
+                started.forEach(Thread::interrupt);
+                for (Thread worker : started) {
+                    worker.join(ABANDON_WAIT_MS);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<T> left = new ArrayList<>();
+        synchronized (abandonedItems) {
+            left.addAll(abandonedItems);
+            queue.drainTo(left);
+        }
+        synchronized (this) {
+            if (inlineHandler != null) inlineHandler.close();
+        }
+        return left;
+    }
+}
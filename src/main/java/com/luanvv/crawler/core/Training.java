@@ -0,0 +1,92 @@
+package com.luanvv.crawler.core;
+
+import com.luanvv.crawler.CliArgs;
+import com.microsoft.playwright.Page;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+
+// The `train` command walks the startup path of a crawl without touching any site, so that a JVM started with
+// -XX:ArchiveClassesAtExit records the classes a real run loads (YAML config, log4j, bucket4j, writers, Playwright).
+@Slf4j
+public class Training {
+    private static final String FIXTURE = """
+        <html><body><table id="t"><tbody>
+        <tr><td>1</td><td><a href="/detail?id=1">One</a></td></tr>
+        <tr><td>2</td><td><a href="/detail?id=2">Two</a></td></tr>
+        </tbody></table></body></html>
+        """;
+
+    public static void run(CliArgs args) throws Exception {
+        Path configPath = !args.getPositional().isEmpty()
+            ? Paths.get(args.getPositional().get(0))
+            : Crawler.listConfigFiles().stream().findFirst().orElse(null);
+        if (configPath == null || !Files.exists(configPath)) {
+            log.error("Usage: train [config.yaml]");
+            return;
+        }
+        long start = System.currentTimeMillis();
+        Config config = Config.load(configPath);
+        // Whatever config is given, training must not open a window, stop on a budget or route through archives
+        config.setHeadless(true);
+        config.setBudget(null);
+        config.setHar(null);
+        Path out = Files.createTempDirectory("crawler-train");
+        try {
+            if (config.getOutput() == null) config.setOutput(new Config.Output());
+            config.getOutput().setDir(out.toString());
+            exerciseWriters(config);
+            exerciseBrowser(config);
+        } finally {
+            try (var paths = Files.walk(out)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+        log.info("Training run finished in {} ms", System.currentTimeMillis() - start);
+    }
+
+    private static void exerciseWriters(Config config) throws Exception {
+        Config.Output output = config.getOutput();
+        output.setJson(true);
+        output.setCsv(true);
+        AccountPool accounts = new AccountPool(config);
+        Retryer retryer = new Retryer(config.getRetries());
+        accounts.primary().getLimiter().acquire();
+        try (OutputWriters writers = new OutputWriters(output);
+             CrawlPipeline pipeline = new CrawlPipeline(config, writers, accounts, retryer)) {
+            Extractor extractor = new Extractor(config, output.getDir(), pipeline.assetSink());
+            pipeline.start(extractor);
+            Config.CrawlerConfig crawlerCfg = config.getCrawlers() != null && !config.getCrawlers().isEmpty()
+                ? config.getCrawlers().get(0)
+                : new Config.CrawlerConfig();
+            Map<String, Object> record = new HashMap<>();
+            record.put("ID", "1");
+            record.put("Tên", "training");
+            record.put("tags", List.of("a", "b"));
+            retryer.runWithRetry("train-write", () -> {
+                pipeline.recordSink().write(crawlerCfg, "train_1", "1", record);
+                return true;
+            });
+        }
+    }
+
+    private static void exerciseBrowser(Config config) {
+        // Browsers may not be installed where the archive is built; the driver side is still worth recording
+        try (BrowserSession session = new BrowserSession(config)) {
+            session.start();
+            Page page = session.getPage();
+            page.setContent(FIXTURE);
+            List<String> cells = page.locator("#t tbody tr td:first-child").allInnerTexts();
+            page.locator("#t a").first().getAttribute("href");
+            session.storageState();
+            log.info("Browser training extracted {} cells", cells.size());
+        } catch (Exception e) {
+            log.warn("Browser part of the training run failed: {}", e.getMessage());
+        }
+    }
+}
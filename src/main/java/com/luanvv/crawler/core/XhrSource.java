@@ -0,0 +1,81 @@
+package com.luanvv.crawler.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Response;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+
+// `source: xhr` crawlers read the JSON the page's own AJAX call returns instead of the rendered DOM.
+// Paths are dotted keys with optional [n] indexes, e.g. "data.rows" or "$.result.items[0].name".
+@Slf4j
+public class XhrSource {
+    public static final String XHR = "xhr";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Pattern SEGMENT = Pattern.compile("([^.\\[\\]]+)|\\[(\\d+)]");
+
+    public static boolean isXhr(Config.CrawlerConfig crawlerCfg) {
+        return XHR.equalsIgnoreCase(crawlerCfg.getSource());
+    }
+
+    // Runs the navigation (a page load or a click) and returns the body of the first matching response
+    public static JsonNode capture(Page page, Config.CrawlerConfig crawlerCfg, Runnable navigation) throws Exception {
+        Config.Xhr xhr = crawlerCfg.getXhr();
+        if (xhr == null || xhr.getUrlPattern() == null || xhr.getUrlPattern().isBlank()) {
+            throw new IllegalStateException("Crawler '" + crawlerCfg.getId() + "' has source xhr but no xhr.urlPattern");
+        }
+        Pattern pattern = Pattern.compile(xhr.getUrlPattern());
+        Response response = page.waitForResponse(
+            r -> r.ok() && pattern.matcher(r.url()).find(),
+            new Page.WaitForResponseOptions().setTimeout(xhr.getTimeoutMs()),
+            navigation);
+        log.debug("Captured {} for crawler '{}'", response.url(), crawlerCfg.getId());
+        return MAPPER.readTree(response.body());
+    }
+
+    // Rows of a list response; a response that is itself an array is taken as the rows
+    public static List<JsonNode> items(JsonNode body, Config.CrawlerConfig crawlerCfg) {
+        JsonNode rows = at(body, crawlerCfg.getXhr().getItemsPath());
+        List<JsonNode> items = new ArrayList<>();
+        if (rows.isArray()) {
+            rows.forEach(items::add);
+        } else if (!rows.isMissingNode() && !rows.isNull()) {
+            log.warn("xhr.itemsPath '{}' of crawler '{}' is not an array", crawlerCfg.getXhr().getItemsPath(),
+                crawlerCfg.getId());
+        }
+        return items;
+    }
+
+    // The object a detail record is read from
+    public static JsonNode root(JsonNode body, Config.CrawlerConfig crawlerCfg) {
+        return at(body, crawlerCfg.getXhr().getItemsPath());
+    }
+
+    public static JsonNode at(JsonNode node, String path) {
+        if (node == null) return MissingNode.getInstance();
+        if (path == null || path.isBlank() || path.equals("$")) return node;
+        String p = path.startsWith("$.") ? path.substring(2) : path.startsWith("$") ? path.substring(1) : path;
+        var matcher = SEGMENT.matcher(p);
+        JsonNode current = node;
+        while (matcher.find() && !current.isMissingNode()) {
+            current = matcher.group(1) != null
+                ? current.path(matcher.group(1))
+                : current.path(Integer.parseInt(matcher.group(2)));
+        }
+        return current;
+    }
+
+    // Scalars keep their JSON type so values come through exactly as the server sent them
+    public static Object toValue(JsonNode node) {
+        if (node == null || node.isMissingNode() || node.isNull()) return null;
+        if (node.isTextual()) return node.textValue();
+        if (node.isBoolean()) return node.booleanValue();
+        if (node.isNumber()) return node.numberValue();
+        return MAPPER.convertValue(node, Object.class);
+    }
+}
@@ -0,0 +1,200 @@
+package com.luanvv.crawler.distributed;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.luanvv.crawler.CliArgs;
+import com.luanvv.crawler.core.BrowserSession;
+import com.luanvv.crawler.core.Config;
+import com.luanvv.crawler.core.CrawlGraph;
+import com.luanvv.crawler.core.Extractor;
+import com.luanvv.crawler.core.ListCrawler;
+import com.luanvv.crawler.core.LoginManager;
+import com.luanvv.crawler.core.RateLimiter;
+import com.luanvv.crawler.core.Retryer;
+import com.microsoft.playwright.Page;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.extern.slf4j.Slf4j;
+
+// Walks list pagination and hands list pages and detail URLs to workers as time-bounded leases
+@Slf4j
+public class Coordinator implements AutoCloseable {
+    private static final long DONE_GRACE_MS = 5000;
+
+    private final Config config;
+    private final LeaseQueue queue;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor();
+    private ServerSocket serverSocket;
+
+    public Coordinator(Config config) {
+        this.config = config;
+        Config.Distributed cfg = distributedConfig(config);
+        this.queue = new LeaseQueue(cfg.getLeaseMs(), cfg.getMaxAttempts());
+    }
+
+    public static void run(CliArgs args) throws Exception {
+        if (args.getPositional().isEmpty()) {
+            log.error("Usage: coordinator <config.yaml> [--port 7070]");
+            return;
+        }
+        Config config = Config.load(args.getPositional().get(0));
+        int port = args.getInt("port", distributedConfig(config).getPort());
+        try (Coordinator coordinator = new Coordinator(config)) {
+            coordinator.start(port);
+            coordinator.produce();
+            coordinator.awaitWorkers();
+        }
+    }
+
+    static Config.Distributed distributedConfig(Config config) {
+        return config.getDistributed() != null ? config.getDistributed() : new Config.Distributed();
+    }
+
+    public void start(int port) throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(port));
+        Thread.ofPlatform().daemon().name("coordinator-accept").start(this::acceptLoop);
+        log.info("Coordinator listening on port {}", getPort());
+    }
+
+    // The bound port, for when it was started on port 0
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    LeaseQueue queue() {
+        return queue;
+    }
+
+    public void produce() throws Exception {
+        try (BrowserSession session = new BrowserSession(config)) {
+            session.start();
+            Page page = session.getPage();
+            LoginManager loginManager = new LoginManager(config);
+            RateLimiter limiter = RateLimiter.of(config);
+            Retryer retryer = new Retryer(config.getRetries());
+
+            boolean loginOk = retryer.runWithRetry("login", () -> {
+                if (loginManager.ensureLoggedIn(page)) return true;
+                throw new RuntimeException("login failed");
+            });
+            if (!loginOk) throw new RuntimeException("Cannot login");
+
+            for (Config.CrawlerConfig crawlerCfg : config.getCrawlers()) {
+                if (!CrawlGraph.isRoot(config, crawlerCfg)) {
+                    log.warn("Crawler '{}' is only reached through links, which distributed mode does not follow",
+                        crawlerCfg.getId());
+                } else if ("list".equalsIgnoreCase(crawlerCfg.getType())) {
+                    // Rows are extracted by workers, so the extractor is never used here
+                    Extractor extractor = new Extractor(config, config.getOutput().getDir(), null);
+                    ListCrawler listCrawler = new ListCrawler(config, limiter, retryer, extractor, loginManager);
+                    Set<String> urls = new HashSet<>();
+                    listCrawler.paginate(session, crawlerCfg, (pageNumber, url) -> {
+                        // A worker only navigates to the URL, so pages reached by clicking can't be handed out
+                        if (!urls.add(url)) {
+                            throw new IllegalStateException("Crawler '" + crawlerCfg.getId() + "' reached page "
+                                + pageNumber + " without the URL changing (" + url + "); distributed mode needs "
+                                + "URL-addressable list pages, run this config with `crawl` instead");
+                        }
+                        queue.offer(WorkItem.listPage(crawlerCfg.getId(), url, pageNumber));
+                        log.info("Queued list page {} of '{}' ({})", pageNumber, crawlerCfg.getId(), queue.stats());
+                    });
+                } else if ("detail".equalsIgnoreCase(crawlerCfg.getType())
+                    && crawlerCfg.getUrl() != null && !crawlerCfg.getUrl().isBlank()) {
+                    queue.offer(WorkItem.detail(crawlerCfg.getId(), config.getBaseUrl() + crawlerCfg.getUrl(), null));
+                }
+            }
+        } finally {
+            queue.markProducerDone();
+        }
+        log.info("Pagination finished, waiting for workers ({})", queue.stats());
+    }
+
+    public void awaitWorkers() throws InterruptedException {
+        queue.awaitDrained();
+        log.info("All work items finished ({})", queue.stats());
+        // Give polling workers a chance to receive DONE before the socket closes
+        Thread.sleep(DONE_GRACE_MS);
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.submit(() -> handleConnection(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) log.warn("Accept failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void handleConnection(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                WorkMessage reply = handle(objectMapper.readValue(line, WorkMessage.class));
+                out.write(objectMapper.writeValueAsString(reply));
+                out.newLine();
+                out.flush();
+            }
+        } catch (IOException e) {
+            log.debug("Worker connection closed: {}", e.getMessage());
+        }
+    }
+
+    WorkMessage handle(WorkMessage message) {
+        long now = System.currentTimeMillis();
+        switch (message.getOp()) {
+            case WorkMessage.CLAIM -> {
+                LeaseQueue.Lease lease = queue.claim(message.getWorkerId(), now);
+                if (lease != null) {
+                    log.info("Leased {} {} to {}", lease.item().getKind(), lease.item().getUrl(), message.getWorkerId());
+                    WorkMessage reply = WorkMessage.of(WorkMessage.LEASE);
+                    reply.setLeaseId(lease.id());
+                    reply.setLeaseMs(queue.getLeaseMs());
+                    reply.setItem(lease.item());
+                    return reply;
+                }
+                return WorkMessage.of(queue.isDrained() ? WorkMessage.DONE : WorkMessage.WAIT);
+            }
+            case WorkMessage.RENEW -> {
+                return WorkMessage.of(queue.renew(message.getLeaseId(), now) ? WorkMessage.OK : WorkMessage.LOST);
+            }
+            case WorkMessage.COMPLETE -> {
+                return WorkMessage.of(queue.complete(message.getLeaseId()) ? WorkMessage.OK : WorkMessage.LOST);
+            }
+            case WorkMessage.FAIL -> {
+                queue.fail(message.getLeaseId(), message.getError());
+                return WorkMessage.of(WorkMessage.OK);
+            }
+            case WorkMessage.OFFER -> {
+                if (message.getItems() != null) message.getItems().forEach(queue::offer);
+                return WorkMessage.of(WorkMessage.OK);
+            }
+            default -> {
+                WorkMessage reply = WorkMessage.of(WorkMessage.FAIL);
+                reply.setError("Unknown op " + message.getOp());
+                return reply;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (serverSocket != null) serverSocket.close();
+        connections.shutdownNow();
+    }
+}
@@ -0,0 +1,131 @@
+package com.luanvv.crawler.distributed;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class LeaseQueue {
+    public record Lease(String id, WorkItem item, String workerId, long expiresAt) {}
+
+    private final long leaseMs;
+    private final int maxAttempts;
+    private final Deque<WorkItem> pending = new ArrayDeque<>();
+    private final Map<String, Lease> leases = new HashMap<>();
+    private final Map<String, WorkItem> expired = new HashMap<>();
+    private final Set<String> seen = new HashSet<>();
+    private final Set<String> finished = new HashSet<>();
+    private boolean producerDone = false;
+    private int completed = 0;
+    private int failed = 0;
+
+    public LeaseQueue(long leaseMs, int maxAttempts) {
+        this.leaseMs = leaseMs;
+        this.maxAttempts = Math.max(1, maxAttempts);
+    }
+
+    public long getLeaseMs() {
+        return leaseMs;
+    }
+
+    public synchronized boolean offer(WorkItem item) {
+        if (!seen.add(item.dedupeKey())) return false;
+        pending.addLast(item);
+        notifyAll();
+        return true;
+    }
+
+    public synchronized Lease claim(String workerId, long now) {
+        reapExpired(now);
+        WorkItem item = pending.pollFirst();
+        if (item == null) return null;
+        // Once the item is handed out again the new lease owns it; a late result from the expired one is dropped
+        expired.values().removeIf(e -> e == item);
+        item.setAttempts(item.getAttempts() + 1);
+        Lease lease = new Lease(UUID.randomUUID().toString(), item, workerId, now + leaseMs);
+        leases.put(lease.id(), lease);
+        return lease;
+    }
+
+    public synchronized boolean renew(String leaseId, long now) {
+        Lease lease = leases.get(leaseId);
+        if (lease == null) return false;
+        leases.put(leaseId, new Lease(lease.id(), lease.item(), lease.workerId(), now + leaseMs));
+        return true;
+    }
+
+    public synchronized boolean complete(String leaseId) {
+        Lease lease = leases.remove(leaseId);
+        // A worker that overran its lease still finished the work; accept it and drop the requeued copy
+        WorkItem item = lease != null ? lease.item() : expired.remove(leaseId);
+        if (item == null) return false;
+        if (finished.add(item.dedupeKey())) {
+            completed++;
+            pending.removeIf(i -> i.dedupeKey().equals(item.dedupeKey()));
+        }
+        notifyAll();
+        return true;
+    }
+
+    public synchronized void fail(String leaseId, String error) {
+        Lease lease = leases.remove(leaseId);
+        if (lease == null) {
+            expired.remove(leaseId);
+            return;
+        }
+        WorkItem item = lease.item();
+        if (item.getAttempts() < maxAttempts) {
+            log.warn("Work item {} failed on {} (attempt {}/{}): {}", item.getUrl(), lease.workerId(),
+                item.getAttempts(), maxAttempts, error);
+            pending.addLast(item);
+        } else {
+            log.error("Giving up on work item {} after {} attempts: {}", item.getUrl(), item.getAttempts(), error);
+            finished.add(item.dedupeKey());
+            failed++;
+        }
+        notifyAll();
+    }
+
+    public synchronized int reapExpired(long now) {
+        int reaped = 0;
+        Iterator<Lease> it = leases.values().iterator();
+        while (it.hasNext()) {
+            Lease lease = it.next();
+            if (lease.expiresAt() > now) continue;
+            it.remove();
+            if (!finished.contains(lease.item().dedupeKey())) {
+                expired.put(lease.id(), lease.item());
+                log.warn("Lease on {} held by {} expired, reassigning", lease.item().getUrl(), lease.workerId());
+                pending.addFirst(lease.item());
+                reaped++;
+            }
+        }
+        return reaped;
+    }
+
+    public synchronized void markProducerDone() {
+        producerDone = true;
+        notifyAll();
+    }
+
+    public synchronized boolean isDrained() {
+        return producerDone && pending.isEmpty() && leases.isEmpty();
+    }
+
+    public synchronized void awaitDrained() throws InterruptedException {
+        while (!isDrained()) {
+            wait(1000);
+            reapExpired(System.currentTimeMillis());
+        }
+    }
+
+    public synchronized String stats() {
+        return String.format("pending=%d leased=%d completed=%d failed=%d", pending.size(), leases.size(), completed, failed);
+    }
+}
@@ -0,0 +1,32 @@
+package com.luanvv.crawler.distributed;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkItem {
+    public enum Kind { LIST_PAGE, DETAIL }
+
+    private Kind kind;
+    private String crawlerId;
+    private String url;
+    private String parentId;
+    private int pageNumber;
+    private int attempts;
+
+    public static WorkItem listPage(String crawlerId, String url, int pageNumber) {
+        return new WorkItem(Kind.LIST_PAGE, crawlerId, url, null, pageNumber, 0);
+    }
+
+    public static WorkItem detail(String crawlerId, String url, String parentId) {
+        return new WorkItem(Kind.DETAIL, crawlerId, url, parentId, 0, 0);
+    }
+
+    public String dedupeKey() {
+        String key = kind + "|" + crawlerId + "|" + url + "|" + parentId;
+        return kind == Kind.LIST_PAGE ? key + "|" + pageNumber : key;
+    }
+}
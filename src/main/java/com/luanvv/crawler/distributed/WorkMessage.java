@@ -0,0 +1,37 @@
+package com.luanvv.crawler.distributed;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One JSON object per line in both directions between worker and coordinator
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class WorkMessage {
+    public static final String CLAIM = "claim";
+    public static final String LEASE = "lease";
+    public static final String WAIT = "wait";
+    public static final String DONE = "done";
+    public static final String RENEW = "renew";
+    public static final String COMPLETE = "complete";
+    public static final String FAIL = "fail";
+    public static final String OFFER = "offer";
+    public static final String OK = "ok";
+    public static final String LOST = "lost";
+
+    private String op;
+    private String workerId;
+    private String leaseId;
+    private Long leaseMs;
+    private WorkItem item;
+    private List<WorkItem> items;
+    private String error;
+
+    public static WorkMessage of(String op) {
+        WorkMessage m = new WorkMessage();
+        m.setOp(op);
+        return m;
+    }
+}
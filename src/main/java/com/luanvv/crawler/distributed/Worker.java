@@ -0,0 +1,246 @@
+package com.luanvv.crawler.distributed;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.luanvv.crawler.CliArgs;
+import com.luanvv.crawler.core.BrowserSession;
+import com.luanvv.crawler.core.Config;
+import com.luanvv.crawler.core.DetailCrawler;
+import com.luanvv.crawler.core.Extractor;
+import com.luanvv.crawler.core.ImageVariants;
+import com.luanvv.crawler.core.ListCrawler;
+import com.luanvv.crawler.core.LoginManager;
+import com.luanvv.crawler.core.OutputWriters;
+import com.luanvv.crawler.core.RateLimiter;
+import com.luanvv.crawler.core.Retryer;
+import com.luanvv.crawler.core.Stage;
+import com.luanvv.crawler.jfr.NavigateEvent;
+import com.microsoft.playwright.Page;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+// Claims leases from a coordinator and crawls them with its own browser and login
+@Slf4j
+public class Worker implements AutoCloseable {
+    private static final long WAIT_MS = 1000;
+
+    private final Config config;
+    private final String workerId;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "worker-heartbeat");
+        t.setDaemon(true);
+        return t;
+    });
+    private Socket socket;
+    private BufferedReader in;
+    private BufferedWriter out;
+    private Extractor extractor;
+
+    public Worker(Config config, String workerId) {
+        this.config = config;
+        this.workerId = workerId;
+    }
+
+    public static void run(CliArgs args) throws Exception {
+        if (args.getPositional().isEmpty()) {
+            log.error("Usage: worker <config.yaml> [--host localhost] [--port 7070] [--id worker-1]");
+            return;
+        }
+        Config config = Config.load(args.getPositional().get(0));
+        Config.Distributed cfg = Coordinator.distributedConfig(config);
+        String defaultId = java.net.InetAddress.getLocalHost().getHostName() + "-" + ProcessHandle.current().pid();
+        try (Worker worker = new Worker(config, args.get("id", defaultId))) {
+            worker.connect(args.get("host", cfg.getHost()), args.getInt("port", cfg.getPort()));
+            worker.work();
+        }
+    }
+
+    public void connect(String host, int port) throws IOException {
+        socket = new Socket(host, port);
+        in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+        log.info("Worker {} connected to coordinator {}:{}", workerId, host, port);
+    }
+
+    public void work() throws Exception {
+        try (BrowserSession session = new BrowserSession(config);
+             OutputWriters writers = new OutputWriters(config.getOutput());
+             Stage<Extractor.AssetTask> assets = new Stage<>("assets", assetStageConfig(), this::assetHandler)) {
+            session.start();
+            Page page = session.getPage();
+            LoginManager loginManager = new LoginManager(config);
+            RateLimiter limiter = RateLimiter.of(config);
+            Retryer retryer = new Retryer(config.getRetries());
+            extractor = new Extractor(config, config.getOutput().getDir(), assets::submit);
+            assets.start();
+            extractor.verifyAssets();
+            ListCrawler listCrawler = new ListCrawler(config, limiter, retryer, extractor, loginManager);
+            DetailCrawler detailCrawler = new DetailCrawler(config, limiter, retryer, extractor, loginManager);
+
+            boolean loginOk = retryer.runWithRetry("login", () -> {
+                if (loginManager.ensureLoggedIn(page)) return true;
+                throw new RuntimeException("login failed");
+            });
+            if (!loginOk) throw new RuntimeException("Cannot login");
+
+            drain(item -> {
+                session.recycleIfNeeded();
+                return process(item, session.getPage(), listCrawler, detailCrawler, writers, loginManager, limiter,
+                    retryer);
+            });
+        }
+    }
+
+    interface Processor {
+        // Returns the work items found while processing, which go back to the coordinator
+        List<WorkItem> process(WorkItem item) throws Exception;
+    }
+
+    // Claims leases until the coordinator has nothing left, renewing each while it is processed
+    int drain(Processor processor) throws Exception {
+        int processed = 0;
+        while (true) {
+            WorkMessage claim = WorkMessage.of(WorkMessage.CLAIM);
+            claim.setWorkerId(workerId);
+            WorkMessage reply = call(claim);
+            if (WorkMessage.DONE.equals(reply.getOp())) {
+                log.info("Coordinator reports no more work; worker {} processed {} items", workerId, processed);
+                return processed;
+            }
+            if (!WorkMessage.LEASE.equals(reply.getOp())) {
+                Thread.sleep(WAIT_MS);
+                continue;
+            }
+
+            ScheduledFuture<?> renewal = scheduleRenewal(reply.getLeaseId(), reply.getLeaseMs());
+            WorkMessage result;
+            try {
+                List<WorkItem> found = processor.process(reply.getItem());
+                if (!found.isEmpty()) {
+                    WorkMessage offer = WorkMessage.of(WorkMessage.OFFER);
+                    offer.setWorkerId(workerId);
+                    offer.setItems(found);
+                    call(offer);
+                }
+                result = WorkMessage.of(WorkMessage.COMPLETE);
+                processed++;
+            } catch (Exception e) {
+                log.error("Work item {} failed: {}", reply.getItem().getUrl(), e.toString());
+                result = WorkMessage.of(WorkMessage.FAIL);
+                result.setError(e.getClass().getSimpleName() + ": " + e.getMessage());
+            } finally {
+                renewal.cancel(false);
+            }
+            result.setWorkerId(workerId);
+            result.setLeaseId(reply.getLeaseId());
+            call(result);
+        }
+    }
+
+    private List<WorkItem> process(WorkItem item, Page page, ListCrawler listCrawler, DetailCrawler detailCrawler,
+                         OutputWriters writers, LoginManager loginManager, RateLimiter limiter, Retryer retryer)
+        throws Exception {
+        Config.CrawlerConfig crawlerCfg = config.findCrawlerById(item.getCrawlerId());
+        if (crawlerCfg == null) {
+            throw new IllegalArgumentException("Unknown crawler '" + item.getCrawlerId() + "'");
+        }
+        if (item.getKind() == WorkItem.Kind.DETAIL) {
+            detailCrawler.crawl(page, crawlerCfg, writers, item.getUrl(), item.getParentId());
+            return List.of();
+        }
+
+        limiter.acquire();
+        log.info("Navigate list page {}: {}", item.getPageNumber(), item.getUrl());
+        retryer.runWithRetry("navigate-list", () -> {
+            NavigateEvent event = NavigateEvent.start();
+            try {
+                listCrawler.load(page, crawlerCfg, item.getUrl());
+                if (event != null) {
+                    event.kind = "list";
+                    event.crawler = crawlerCfg.getId();
+                    event.url = item.getUrl();
+                    event.commit();
+                }
+            } catch (Exception e) {
+                if (config.getRetries() != null && config.getRetries().isReloginOnFail()) {
+                    loginManager.login(page);
+                }
+                throw e;
+            }
+            return true;
+        });
+
+        List<WorkItem> details = new ArrayList<>();
+        listCrawler.setRowHandler(row -> {
+            writers.write(row.crawlerCfg(), ListCrawler.listRecordName(row), row.uniqueId(), row.record());
+            if (!row.children().isEmpty()) {
+                log.warn("Row {} links to {} child pages, which distributed mode does not follow", row.uniqueId(),
+                    row.children().size());
+            }
+            if (row.detailCrawler() != null) {
+                details.add(WorkItem.detail(row.detailCrawler().getId(), row.detailUrl(), row.uniqueId()));
+            }
+        });
+        listCrawler.extractPage(page, crawlerCfg, writers, item.getPageNumber());
+        return details;
+    }
+
+    private Stage.Handler<Extractor.AssetTask> assetHandler() {
+        ImageVariants variants = ImageVariants.of(config);
+        // Called when the stage starts, after work() has created the extractor
+        return task -> {
+            extractor.fetch(task);
+            if (variants != null) variants.process(task.path());
+        };
+    }
+
+    private Config.StageConfig assetStageConfig() {
+        if (config.getPipeline() != null && config.getPipeline().getAssets() != null) {
+            return config.getPipeline().getAssets();
+        }
+        return new Config.StageConfig(config.getParallelism(), 200);
+    }
+
+    private ScheduledFuture<?> scheduleRenewal(String leaseId, Long leaseMs) {
+        long period = Math.max(1000, (leaseMs != null ? leaseMs : 60000) / 3);
+        return heartbeat.scheduleAtFixedRate(() -> {
+            try {
+                WorkMessage renew = WorkMessage.of(WorkMessage.RENEW);
+                renew.setWorkerId(workerId);
+                renew.setLeaseId(leaseId);
+                if (WorkMessage.LOST.equals(call(renew).getOp())) {
+                    log.warn("Lease {} was reassigned by the coordinator", leaseId);
+                }
+            } catch (IOException e) {
+                log.warn("Failed to renew lease {}: {}", leaseId, e.getMessage());
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized WorkMessage call(WorkMessage message) throws IOException {
+        out.write(objectMapper.writeValueAsString(message));
+        out.newLine();
+        out.flush();
+        String line = in.readLine();
+        if (line == null) throw new IOException("Coordinator closed the connection");
+        return objectMapper.readValue(line, WorkMessage.class);
+    }
+
+    @Override
+    public void close() throws IOException {
+        heartbeat.shutdownNow();
+        if (socket != null) socket.close();
+    }
+}
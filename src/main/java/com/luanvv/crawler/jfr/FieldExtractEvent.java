@@ -0,0 +1,33 @@
+package com.luanvv.crawler.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.luanvv.crawler.FieldExtract")
+@Label("Field Extract")
+@Category("Crawler")
+public class FieldExtractEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(FieldExtractEvent.class);
+
+    @Label("Crawler")
+    public String crawler;
+
+    @Label("Field Id")
+    public String fieldId;
+
+    @Label("Field Type")
+    public String fieldType;
+
+    @Label("Failed")
+    public boolean failed;
+
+    public static FieldExtractEvent start() {
+        if (!TYPE.isEnabled()) return null;
+        FieldExtractEvent event = new FieldExtractEvent();
+        event.begin();
+        return event;
+    }
+}
@@ -0,0 +1,29 @@
+package com.luanvv.crawler.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.luanvv.crawler.ImageDownload")
+@Label("Image Download")
+@Category("Crawler")
+public class ImageDownloadEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(ImageDownloadEvent.class);
+
+    @Label("URL")
+    public String url;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    public static ImageDownloadEvent start() {
+        if (!TYPE.isEnabled()) return null;
+        ImageDownloadEvent event = new ImageDownloadEvent();
+        event.begin();
+        return event;
+    }
+}
@@ -0,0 +1,27 @@
+package com.luanvv.crawler.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.luanvv.crawler.ImageVariant")
+@Label("Image Variant")
+@Category("Crawler")
+public class ImageVariantEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(ImageVariantEvent.class);
+
+    @Label("Original")
+    public String path;
+
+    @Label("Variants")
+    public int variants;
+
+    public static ImageVariantEvent start() {
+        if (!TYPE.isEnabled()) return null;
+        ImageVariantEvent event = new ImageVariantEvent();
+        event.begin();
+        return event;
+    }
+}
@@ -0,0 +1,33 @@
+package com.luanvv.crawler.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.luanvv.crawler.Navigate")
+@Label("Navigate")
+@Category("Crawler")
+@Description("Page navigation including waitForLoadState")
+public class NavigateEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(NavigateEvent.class);
+
+    @Label("Kind")
+    public String kind;
+
+    @Label("Crawler")
+    public String crawler;
+
+    @Label("URL")
+    public String url;
+
+    // Returns null when no recording wants this event, so the disabled path allocates nothing
+    public static NavigateEvent start() {
+        if (!TYPE.isEnabled()) return null;
+        NavigateEvent event = new NavigateEvent();
+        event.begin();
+        return event;
+    }
+}
@@ -0,0 +1,27 @@
+package com.luanvv.crawler.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.luanvv.crawler.PreAction")
+@Label("Pre Action")
+@Category("Crawler")
+public class PreActionEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(PreActionEvent.class);
+
+    @Label("Field Id")
+    public String fieldId;
+
+    @Label("Action Id")
+    public String actionId;
+
+    public static PreActionEvent start() {
+        if (!TYPE.isEnabled()) return null;
+        PreActionEvent event = new PreActionEvent();
+        event.begin();
+        return event;
+    }
+}
@@ -0,0 +1,135 @@
+package com.luanvv.crawler.jfr;
+
+import com.luanvv.crawler.CliArgs;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import lombok.extern.slf4j.Slf4j;
+
+// Summarises the crawler's JFR events into time per phase, per navigation kind, per field and per retried operation
+@Slf4j
+public class ProfileReport {
+    private static final String PREFIX = "com.luanvv.crawler.";
+
+    static class Stats {
+        final List<Long> nanos = new ArrayList<>();
+        long failures;
+        long bytes;
+
+        void add(Duration d) {
+            nanos.add(d.toNanos());
+        }
+
+        long totalMillis() {
+            return nanos.stream().mapToLong(Long::longValue).sum() / 1_000_000;
+        }
+
+        double percentileMillis(double p) {
+            if (nanos.isEmpty()) return 0;
+            List<Long> sorted = nanos.stream().sorted().toList();
+            int index = (int) Math.min(sorted.size() - 1, Math.ceil(p * sorted.size()) - 1);
+            return sorted.get(Math.max(0, index)) / 1e6;
+        }
+    }
+
+    private final Map<String, Stats> phases = new LinkedHashMap<>();
+    private final Map<String, Stats> navigations = new LinkedHashMap<>();
+    private final Map<String, Stats> fields = new LinkedHashMap<>();
+    private final Map<String, Stats> preActions = new LinkedHashMap<>();
+    private final Map<String, Stats> retries = new LinkedHashMap<>();
+    private Instant first;
+    private Instant last;
+
+    public static void run(CliArgs args) throws IOException {
+        if (args.getPositional().isEmpty()) {
+            log.error("Usage: profile-report <recording.jfr> [--top 20]");
+            return;
+        }
+        Path file = Paths.get(args.getPositional().get(0));
+        if (!Files.exists(file)) {
+            log.error("Recording not found: {}", file);
+            return;
+        }
+        ProfileReport report = new ProfileReport();
+        report.read(file);
+        report.print(System.out, args.getInt("top", 20));
+    }
+
+    public void read(Path file) throws IOException {
+        try (RecordingFile recording = new RecordingFile(file)) {
+            while (recording.hasMoreEvents()) {
+                RecordedEvent event = recording.readEvent();
+                String name = event.getEventType().getName();
+                if (!name.startsWith(PREFIX)) continue;
+                add(name.substring(PREFIX.length()), event);
+            }
+        }
+    }
+
+    private void add(String phase, RecordedEvent event) {
+        if (first == null || event.getStartTime().isBefore(first)) first = event.getStartTime();
+        if (last == null || event.getEndTime().isAfter(last)) last = event.getEndTime();
+        Duration duration = event.getDuration();
+        phases.computeIfAbsent(phase, k -> new Stats()).add(duration);
+        switch (phase) {
+            case "Navigate" -> navigations.computeIfAbsent(
+                event.getString("kind") + " " + event.getString("crawler"), k -> new Stats()).add(duration);
+            case "FieldExtract" -> {
+                Stats stats = fields.computeIfAbsent(event.getString("crawler") + "." + event.getString("fieldId")
+                    + " (" + event.getString("fieldType") + ")", k -> new Stats());
+                stats.add(duration);
+                if (event.getBoolean("failed")) stats.failures++;
+            }
+            case "PreAction" -> preActions.computeIfAbsent(
+                event.getString("fieldId") + "/" + event.getString("actionId"), k -> new Stats()).add(duration);
+            case "Retry" -> retries.computeIfAbsent(
+                event.getString("operation") + " " + event.getString("error"), k -> new Stats()).add(duration);
+            case "ImageDownload" -> phases.get(phase).bytes += event.getLong("bytes");
+            default -> { }
+        }
+    }
+
+    public void print(PrintStream out, int top) {
+        if (phases.isEmpty()) {
+            out.println("No crawler events in this recording. Record with -XX:StartFlightRecording=filename=crawl.jfr");
+            return;
+        }
+        out.printf("Recording span: %d ms%n%n", Duration.between(first, last).toMillis());
+        table(out, "Phases (time summed across threads)", phases, Integer.MAX_VALUE);
+        Stats downloads = phases.get("ImageDownload");
+        if (downloads != null) {
+            out.printf("Images: %d downloads, %.1f MB%n%n", downloads.nanos.size(), downloads.bytes / (1024.0 * 1024.0));
+        }
+        table(out, "Navigations", navigations, top);
+        table(out, "Fields, slowest first", fields, top);
+        table(out, "Pre-actions", preActions, top);
+        table(out, "Retries (including backoff)", retries, top);
+    }
+
+    private void table(PrintStream out, String title, Map<String, Stats> rows, int top) {
+        if (rows.isEmpty()) return;
+        out.println(title);
+        out.printf("  %-48s %8s %10s %9s %9s %9s %6s%n", "", "count", "total ms", "avg ms", "p95 ms", "max ms", "fail");
+        rows.entrySet().stream()
+            .sorted(Comparator.comparingLong((Map.Entry<String, Stats> e) -> e.getValue().totalMillis()).reversed())
+            .limit(top)
+            .forEach(e -> {
+                Stats s = e.getValue();
+                out.printf("  %-48s %8d %10d %9.1f %9.1f %9.1f %6d%n", e.getKey(), s.nanos.size(), s.totalMillis(),
+                    (double) s.totalMillis() / s.nanos.size(), s.percentileMillis(0.95), s.percentileMillis(1.0),
+                    s.failures);
+            });
+        out.println();
+    }
+}
@@ -0,0 +1,21 @@
+package com.luanvv.crawler.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.luanvv.crawler.RateLimitWait")
+@Label("Rate Limit Wait")
+@Category("Crawler")
+public class RateLimitWaitEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(RateLimitWaitEvent.class);
+
+    public static RateLimitWaitEvent start() {
+        if (!TYPE.isEnabled()) return null;
+        RateLimitWaitEvent event = new RateLimitWaitEvent();
+        event.begin();
+        return event;
+    }
+}
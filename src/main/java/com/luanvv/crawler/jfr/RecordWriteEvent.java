@@ -0,0 +1,27 @@
+package com.luanvv.crawler.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.luanvv.crawler.RecordWrite")
+@Label("Record Write")
+@Category("Crawler")
+public class RecordWriteEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(RecordWriteEvent.class);
+
+    @Label("Crawler")
+    public String crawler;
+
+    @Label("Record")
+    public String name;
+
+    public static RecordWriteEvent start() {
+        if (!TYPE.isEnabled()) return null;
+        RecordWriteEvent event = new RecordWriteEvent();
+        event.begin();
+        return event;
+    }
+}
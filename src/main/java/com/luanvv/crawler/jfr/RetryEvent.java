@@ -0,0 +1,32 @@
+package com.luanvv.crawler.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.luanvv.crawler.Retry")
+@Label("Retry")
+@Category("Crawler")
+@Description("A failed attempt and the backoff sleep after it")
+public class RetryEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(RetryEvent.class);
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Attempt")
+    public int attempt;
+
+    @Label("Error")
+    public String error;
+
+    public static RetryEvent start() {
+        if (!TYPE.isEnabled()) return null;
+        RetryEvent event = new RetryEvent();
+        event.begin();
+        return event;
+    }
+}
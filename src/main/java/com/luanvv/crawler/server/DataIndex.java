@@ -0,0 +1,162 @@
+package com.luanvv.crawler.server;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class DataIndex implements AutoCloseable {
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
+    public record Entry(String id, Map<String, Object> data, long lastModified, long size) {}
+
+    private final Path dataDir;
+    private final String listPrefix;
+    private final String detailPrefix;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private volatile Map<String, Entry> listEntries = new ConcurrentHashMap<>();
+    private volatile Map<String, Entry> detailEntries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private WatchService watchService;
+    private Thread watcher;
+
+    public DataIndex(Path dataDir, String listCrawlerId, String detailCrawlerId) {
+        this.dataDir = dataDir;
+        this.listPrefix = "list_" + listCrawlerId.toLowerCase() + "_";
+        this.detailPrefix = "detail_" + detailCrawlerId.toLowerCase() + "_";
+    }
+
+    public void start() throws IOException {
+        rescan();
+        watchService = FileSystems.getDefault().newWatchService();
+        dataDir.register(watchService,
+            StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_MODIFY,
+            StandardWatchEventKinds.ENTRY_DELETE);
+        watcher = Thread.ofPlatform().daemon().name("data-index-watcher").start(this::watchLoop);
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    public List<Entry> listItems() {
+        List<Entry> items = new ArrayList<>(listEntries.values());
+        items.sort(Comparator.comparing(Entry::id));
+        return items;
+    }
+
+    public Entry listItem(String id) {
+        return listEntries.get(id);
+    }
+
+    public Entry detailItem(String id) {
+        return detailEntries.get(id);
+    }
+
+    private void rescan() throws IOException {
+        Map<String, Entry> lists = new ConcurrentHashMap<>();
+        Map<String, Entry> details = new ConcurrentHashMap<>();
+        try (var stream = Files.list(dataDir)) {
+            stream.filter(p -> p.getFileName().toString().endsWith(".json")).forEach(p -> load(p, lists, details));
+        }
+        listEntries = lists;
+        detailEntries = details;
+        generation.incrementAndGet();
+        log.info("Indexed {} list and {} detail records from {}", listEntries.size(), detailEntries.size(), dataDir);
+    }
+
+    private void watchLoop() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        rescan();
+                        continue;
+                    }
+                    Path file = dataDir.resolve((Path) event.context());
+                    if (!file.getFileName().toString().endsWith(".json")) continue;
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                        changed |= remove(file);
+                    } else {
+                        changed |= load(file, listEntries, detailEntries);
+                    }
+                }
+                if (changed) generation.incrementAndGet();
+                if (!key.reset()) {
+                    log.warn("Data directory {} is no longer watchable", dataDir);
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.error("Data index watcher failed", e);
+        }
+    }
+
+    private boolean load(Path file, Map<String, Entry> lists, Map<String, Entry> details) {
+        String name = file.getFileName().toString();
+        Map<String, Entry> target;
+        String id;
+        if (name.startsWith(listPrefix)) {
+            target = lists;
+            id = name.substring(listPrefix.length(), name.length() - ".json".length());
+        } else if (name.startsWith(detailPrefix)) {
+            target = details;
+            id = name.substring(detailPrefix.length(), name.length() - ".json".length());
+        } else {
+            return false;
+        }
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            Entry existing = target.get(id);
+            long lastModified = attrs.lastModifiedTime().toMillis();
+            if (existing != null && existing.lastModified() == lastModified && existing.size() == attrs.size()) {
+                return false;
+            }
+            Map<String, Object> data = objectMapper.readValue(file.toFile(), MAP_TYPE);
+            target.put(id, new Entry(id, data, lastModified, attrs.size()));
+            return true;
+        } catch (IOException e) {
+            // Files are often caught mid-write; the following MODIFY event reloads them
+            log.debug("Could not index {}: {}", file, e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean remove(Path file) {
+        String name = file.getFileName().toString();
+        if (name.startsWith(listPrefix)) {
+            return listEntries.remove(name.substring(listPrefix.length(), name.length() - ".json".length())) != null;
+        }
+        if (name.startsWith(detailPrefix)) {
+            return detailEntries.remove(name.substring(detailPrefix.length(), name.length() - ".json".length())) != null;
+        }
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (watchService != null) watchService.close();
+        if (watcher != null) watcher.interrupt();
+    }
+}
@@ -0,0 +1,296 @@
+package com.luanvv.crawler.server;
+
+import com.luanvv.crawler.CliArgs;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.extern.slf4j.Slf4j;
+
+// Read-only HTTP/1.1 server for crawl output: one virtual thread per connection, files sent with transferTo
+@Slf4j
+public class DataServer implements AutoCloseable {
+    private static final int MAX_HEADER_BYTES = 16 * 1024;
+    private static final int KEEP_ALIVE_TIMEOUT_MS = 30_000;
+    private static final String SERVER_EPOCH = Long.toHexString(Instant.now().toEpochMilli());
+
+    private final Path dataDir;
+    private final DataIndex index;
+    private final int port;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private ServerSocketChannel serverChannel;
+    private volatile CachedPage listPage;
+
+    private record Request(String method, String path, Map<String, String> query, Map<String, String> headers) {
+        boolean keepAlive() {
+            return !"close".equalsIgnoreCase(headers.get("connection"));
+        }
+    }
+
+    private record CachedPage(long generation, String etag, byte[] body) {}
+
+    public DataServer(Path dataDir, int port, String listCrawlerId, String detailCrawlerId) {
+        this.dataDir = dataDir.toAbsolutePath().normalize();
+        this.port = port;
+        this.index = new DataIndex(this.dataDir, listCrawlerId, detailCrawlerId);
+    }
+
+    public static void run(CliArgs args) throws Exception {
+        Path dataDir = findDataDirectory(args.get("dir", null));
+        if (dataDir == null) {
+            log.error("Could not find data directory; pass --dir or set CRAWLER_DATA_DIR");
+            return;
+        }
+        try (DataServer server = new DataServer(dataDir, args.getInt("port", 80),
+            args.get("list", "productList"), args.get("detail", "productDetail"))) {
+            server.start();
+            server.serve();
+        }
+    }
+
+    static Path findDataDirectory(String explicit) {
+        if (explicit != null) {
+            return Files.isDirectory(Path.of(explicit)) ? Path.of(explicit) : null;
+        }
+        String env = System.getenv("CRAWLER_DATA_DIR");
+        if (env != null && Files.isDirectory(Path.of(env))) {
+            return Path.of(env);
+        }
+        for (String candidate : new String[] {"data", "../data", "/root/data"}) {
+            if (Files.isDirectory(Path.of(candidate))) return Path.of(candidate);
+        }
+        return null;
+    }
+
+    public void start() throws IOException {
+        index.start();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress("0.0.0.0", port), 1024);
+        log.info("Serving {} at http://0.0.0.0:{}", dataDir, port);
+    }
+
+    public void serve() throws IOException {
+        while (serverChannel.isOpen()) {
+            SocketChannel channel = serverChannel.accept();
+            executor.submit(() -> handleConnection(channel));
+        }
+    }
+
+    private void handleConnection(SocketChannel channel) {
+        try (channel) {
+            channel.socket().setSoTimeout(KEEP_ALIVE_TIMEOUT_MS);
+            channel.socket().setTcpNoDelay(true);
+            InputStream in = new BufferedInputStream(channel.socket().getInputStream());
+            while (true) {
+                Request request = readRequest(in);
+                if (request == null) return;
+                handle(channel, request);
+                if (!request.keepAlive()) return;
+            }
+        } catch (SocketTimeoutException e) {
+            log.debug("Closing idle connection");
+        } catch (IOException e) {
+            log.debug("Connection error: {}", e.getMessage());
+        }
+    }
+
+    private void handle(SocketChannel channel, Request request) throws IOException {
+        if (!"GET".equals(request.method()) && !"HEAD".equals(request.method())) {
+            sendError(channel, request, 405, "Method not allowed");
+            return;
+        }
+        String path = request.path();
+        if (path.equals("/") || path.equals("/list")) {
+            serveList(channel, request);
+        } else if (path.equals("/detail")) {
+            String id = request.query().get("id");
+            if (id == null || id.isBlank()) {
+                sendError(channel, request, 404, "Item ID required");
+            } else {
+                serveDetail(channel, request, id);
+            }
+        } else if (path.startsWith("/images/") || path.startsWith("/upload/")) {
+            serveFile(channel, request, path.substring(1));
+        } else {
+            sendError(channel, request, 404, "Page not found");
+        }
+    }
+
+    private void serveList(SocketChannel channel, Request request) throws IOException {
+        CachedPage page = listPage;
+        long generation = index.generation();
+        if (page == null || page.generation() != generation) {
+            byte[] body = HtmlPages.listPage(index.listItems()).getBytes(StandardCharsets.UTF_8);
+            page = new CachedPage(generation, "\"l-" + SERVER_EPOCH + "-" + generation + "\"", body);
+            listPage = page;
+        }
+        sendBytes(channel, request, "text/html; charset=utf-8", page.etag(), page.body());
+    }
+
+    private void serveDetail(SocketChannel channel, Request request, String id) throws IOException {
+        DataIndex.Entry listItem = index.listItem(id);
+        DataIndex.Entry detailItem = index.detailItem(id);
+        if (listItem == null && detailItem == null) {
+            sendError(channel, request, 404, "Item not found");
+            return;
+        }
+        String etag = "\"d-" + SERVER_EPOCH + "-" + version(listItem) + "-" + version(detailItem) + "\"";
+        if (notModified(channel, request, etag)) return;
+        byte[] body = HtmlPages.detailPage(listItem, detailItem, id).getBytes(StandardCharsets.UTF_8);
+        sendBytes(channel, request, "text/html; charset=utf-8", etag, body);
+    }
+
+    private void serveFile(SocketChannel channel, Request request, String relativePath) throws IOException {
+        Path file = dataDir.resolve(relativePath).normalize();
+        if (!file.startsWith(dataDir) || !Files.isRegularFile(file)) {
+            sendError(channel, request, 404, "Image not found");
+            return;
+        }
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        String etag = "\"" + Long.toHexString(attrs.size()) + "-" + Long.toHexString(attrs.lastModifiedTime().toMillis()) + "\"";
+        if (notModified(channel, request, etag)) return;
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = fileChannel.size();
+            writeHead(channel, request, 200, "OK", contentType(file), etag, size, "public, max-age=86400");
+            if ("HEAD".equals(request.method())) return;
+            long position = 0;
+            while (position < size) {
+                position += fileChannel.transferTo(position, size - position, channel);
+            }
+        }
+    }
+
+    private boolean notModified(SocketChannel channel, Request request, String etag) throws IOException {
+        String ifNoneMatch = request.headers().get("if-none-match");
+        if (ifNoneMatch == null) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals(etag) || tag.equals("*")) {
+                writeHead(channel, request, 304, "Not Modified", null, etag, -1, null);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void sendBytes(SocketChannel channel, Request request, String contentType, String etag, byte[] body)
+        throws IOException {
+        if (notModified(channel, request, etag)) return;
+        writeHead(channel, request, 200, "OK", contentType, etag, body.length, "no-cache");
+        if (!"HEAD".equals(request.method())) writeFully(channel, ByteBuffer.wrap(body));
+    }
+
+    private void sendError(SocketChannel channel, Request request, int status, String message) throws IOException {
+        byte[] body = ("<h1>" + status + "</h1><p>" + HtmlPages.escape(message) + "</p>").getBytes(StandardCharsets.UTF_8);
+        writeHead(channel, request, status, message, "text/html; charset=utf-8", null, body.length, null);
+        if (!"HEAD".equals(request.method())) writeFully(channel, ByteBuffer.wrap(body));
+    }
+
+    private void writeHead(SocketChannel channel, Request request, int status, String reason, String contentType,
+                           String etag, long contentLength, String cacheControl) throws IOException {
+        StringBuilder head = new StringBuilder(256);
+        head.append("HTTP/1.1 ").append(status).append(' ').append(reason).append("\r\n");
+        if (contentType != null) head.append("Content-Type: ").append(contentType).append("\r\n");
+        if (etag != null) head.append("ETag: ").append(etag).append("\r\n");
+        if (cacheControl != null) head.append("Cache-Control: ").append(cacheControl).append("\r\n");
+        head.append("Content-Length: ").append(Math.max(contentLength, 0)).append("\r\n");
+        head.append("Connection: ").append(request.keepAlive() ? "keep-alive" : "close").append("\r\n\r\n");
+        writeFully(channel, ByteBuffer.wrap(head.toString().getBytes(StandardCharsets.ISO_8859_1)));
+    }
+
+    private void writeFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private Request readRequest(InputStream in) throws IOException {
+        String requestLine = readLine(in);
+        while (requestLine != null && requestLine.isEmpty()) {
+            requestLine = readLine(in);
+        }
+        if (requestLine == null) return null;
+        String[] parts = requestLine.split(" ");
+        if (parts.length < 2) throw new IOException("Malformed request line: " + requestLine);
+
+        Map<String, String> headers = new HashMap<>();
+        String line;
+        while ((line = readLine(in)) != null && !line.isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+            }
+        }
+        if (parts.length > 2 && "HTTP/1.0".equals(parts[2]) && !headers.containsKey("connection")) {
+            headers.put("connection", "close");
+        }
+
+        String target = parts[1];
+        int q = target.indexOf('?');
+        String rawPath = q >= 0 ? target.substring(0, q) : target;
+        String path = URLDecoder.decode(rawPath.replace("+", "%2B"), StandardCharsets.UTF_8);
+        Map<String, String> query = new HashMap<>();
+        if (q >= 0) {
+            for (String pair : target.substring(q + 1).split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq > 0) {
+                    query.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return new Request(parts[0], path, query, headers);
+    }
+
+    private String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') break;
+            if (b != '\r') line.write(b);
+            if (line.size() > MAX_HEADER_BYTES) throw new IOException("Request header too large");
+        }
+        if (b == -1 && line.size() == 0) return null;
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    private String version(DataIndex.Entry entry) {
+        return entry == null ? "0" : Long.toHexString(entry.lastModified()) + Long.toHexString(entry.size());
+    }
+
+    private static String contentType(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".jpg") || name.endsWith(".jpeg")) return "image/jpeg";
+        if (name.endsWith(".png")) return "image/png";
+        if (name.endsWith(".gif")) return "image/gif";
+        if (name.endsWith(".webp")) return "image/webp";
+        if (name.endsWith(".svg")) return "image/svg+xml";
+        return "application/octet-stream";
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (serverChannel != null) serverChannel.close();
+        index.close();
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,224 @@
+package com.luanvv.crawler.server;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// Same markup as server.py so the Java server can replace it without visual changes
+public class HtmlPages {
+    private static final Set<String> SKIP_FIELDS = Set.of("_id", "_itemIndex", "_parentId", "url");
+    private static final List<String> ORDERED_FIELDS = List.of(
+        "Tiêu đề", "Tên", "Giá bán", "Giá mới", "Danh mục cấp 1", "Danh mục cấp 2", "Danh mục cấp 3",
+        "Hình đại diện", "Hình hiện tại", "Hình hover hiện tại", "Album hiện tại",
+        "Mô tả", "Nội dung",
+        "Hiển thị", "Nổi bật", "Bán chạy", "Nổi bật danh mục",
+        "SEO Title", "SEO Description", "SEO Keywords", "SEO H1", "SEO H2", "SEO H3");
+    private static final Set<String> HTML_FIELDS = Set.of(
+        "Mô tả", "Nội dung", "SEO Description", "SEO H1", "SEO H2", "SEO H3");
+
+    public static String listPage(List<DataIndex.Entry> items) {
+        StringBuilder rows = new StringBuilder();
+        for (DataIndex.Entry entry : items) {
+            Map<String, Object> item = entry.data();
+            String itemId = String.valueOf(item.getOrDefault("ID", entry.id()));
+            rows.append("""
+                <tr>
+                    <td>%s</td>
+                    <td>%s</td>
+                    <td><a href="/detail?id=%s" style="color: #2196F3; text-decoration: none;">%s</a></td>
+                    <td style="text-align: center;">%s</td>
+                    <td style="text-align: center;">%s</td>
+                    <td style="text-align: center;">%s</td>
+                    <td style="text-align: center;">%s</td>
+                </tr>
+                """.formatted(
+                escape(itemId),
+                escape(String.valueOf(item.getOrDefault("stt", "N/A"))),
+                escape(itemId),
+                escape(String.valueOf(item.getOrDefault("Tiêu đề", "N/A"))),
+                formatBoolean(item.getOrDefault("Hiển thị", false)),
+                formatBoolean(item.getOrDefault("Nổi bật", false)),
+                formatBoolean(item.getOrDefault("Bán chạy", false)),
+                formatBoolean(item.getOrDefault("Nổi bật danh mục", false))));
+        }
+
+        return """
+            <!DOCTYPE html>
+            <html>
+            <head>
+                <meta charset="UTF-8">
+                <title>Product List - Gạch Men Giá Tốt</title>
+                <style>
+                    body { font-family: Arial, sans-serif; margin: 20px; background-color: #f5f5f5; }
+                    .container { max-width: 1200px; margin: 0 auto; background: white; padding: 20px; border-radius: 8px; box-shadow: 0 2px 10px rgba(0,0,0,0.1); }
+                    h1 { color: #2196F3; text-align: center; margin-bottom: 30px; }
+                    table { width: 100%%; border-collapse: collapse; margin-top: 20px; }
+                    th, td { padding: 12px; text-align: left; border-bottom: 1px solid #ddd; }
+                    th { background-color: #2196F3; color: white; font-weight: bold; }
+                    tr:hover { background-color: #f5f5f5; }
+                    a { color: #2196F3; text-decoration: none; }
+                    a:hover { text-decoration: underline; }
+                </style>
+            </head>
+            <body>
+                <div class="container">
+                    <h1>🏠 Danh Sách Sản Phẩm Gạch</h1>
+                    <p style="text-align: center; color: #666;">Tổng cộng: <strong>%d</strong> sản phẩm</p>
+                    <table>
+                        <thead>
+                            <tr>
+                                <th>ID</th>
+                                <th>STT</th>
+                                <th>Tiêu đề</th>
+                                <th>Hiển thị</th>
+                                <th>Nổi bật</th>
+                                <th>Bán chạy</th>
+                                <th>Nổi bật danh mục</th>
+                            </tr>
+                        </thead>
+                        <tbody>
+                            %s
+                        </tbody>
+                    </table>
+                </div>
+            </body>
+            </html>
+            """.formatted(items.size(), rows);
+    }
+
+    public static String detailPage(DataIndex.Entry listItem, DataIndex.Entry detailItem, String itemId) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        if (listItem != null) data.putAll(listItem.data());
+        if (detailItem != null) data.putAll(detailItem.data());
+
+        Object titleValue = data.containsKey("Tiêu đề") ? data.get("Tiêu đề") : data.getOrDefault("Tên", "Product " + itemId);
+        String title = escape(String.valueOf(titleValue));
+
+        StringBuilder fieldRows = new StringBuilder();
+        List<String> processed = new ArrayList<>();
+        for (String field : ORDERED_FIELDS) {
+            if (data.containsKey(field)) {
+                addFieldRow(fieldRows, field, data.get(field));
+                processed.add(field);
+            }
+        }
+        for (Map.Entry<String, Object> e : data.entrySet()) {
+            String key = e.getKey();
+            if (!processed.contains(key) && !key.startsWith("_") && !SKIP_FIELDS.contains(key)) {
+                addFieldRow(fieldRows, key, e.getValue());
+            }
+        }
+
+        return """
+            <!DOCTYPE html>
+            <html>
+            <head>
+                <meta charset="UTF-8">
+                <title>%s - Chi Tiết Sản Phẩm</title>
+                <style>
+                    body { font-family: Arial, sans-serif; margin: 20px; background-color: #f5f5f5; line-height: 1.6; }
+                    .container { max-width: 1000px; margin: 0 auto; background: white; padding: 30px; border-radius: 8px; box-shadow: 0 2px 10px rgba(0,0,0,0.1); }
+                    .header { text-align: center; margin-bottom: 30px; padding-bottom: 20px; border-bottom: 2px solid #2196F3; }
+                    h1 { color: #2196F3; margin-bottom: 10px; }
+                    .back-link { display: inline-block; margin-bottom: 20px; padding: 10px 20px; background: #2196F3; color: white; text-decoration: none; border-radius: 5px; }
+                    .back-link:hover { background: #1976D2; }
+                    table { width: 100%%; border-collapse: collapse; margin-top: 20px; }
+                    th, td { padding: 15px; border: 1px solid #ddd; }
+                    .image-gallery { display: flex; flex-wrap: wrap; gap: 10px; }
+                    .image-gallery img { max-width: 150px; height: auto; border: 1px solid #ddd; border-radius: 4px; }
+                    .html-content { line-height: 1.8; }
+                    .html-content p { margin-bottom: 10px; }
+                    .html-content h1, .html-content h2, .html-content h3 { color: #2196F3; margin-top: 20px; margin-bottom: 10px; }
+                </style>
+            </head>
+            <body>
+                <div class="container">
+                    <a href="/" class="back-link">← Quay lại danh sách</a>
+
+                    <div class="header">
+                        <h1>%s</h1>
+                        <p style="color: #666;">ID: %s</p>
+                    </div>
+
+                    <table>
+                        %s
+                    </table>
+                </div>
+            </body>
+            </html>
+            """.formatted(title, title, escape(itemId), fieldRows);
+    }
+
+    private static void addFieldRow(StringBuilder rows, String key, Object value) {
+        String formatted;
+        String lowerKey = key.toLowerCase(Locale.ROOT);
+        if (value == null || "".equals(value)) {
+            formatted = "<em style=\"color: #999;\">Không có dữ liệu</em>";
+        } else if (value instanceof Boolean) {
+            formatted = formatBoolean(value);
+        } else if (lowerKey.contains("giá") || lowerKey.contains("price")) {
+            formatted = formatPrice(value);
+        } else if (lowerKey.contains("hình") || lowerKey.contains("image") || lowerKey.contains("album")) {
+            formatted = formatImages(value);
+        } else if (HTML_FIELDS.contains(key)) {
+            formatted = "<div class=\"html-content\">" + value + "</div>";
+        } else {
+            formatted = escape(String.valueOf(value));
+        }
+        rows.append("""
+            <tr>
+                <td style="font-weight: bold; background-color: #f8f9fa; width: 200px; vertical-align: top;">%s</td>
+                <td style="vertical-align: top;">%s</td>
+            </tr>
+            """.formatted(escape(key), formatted));
+    }
+
+    private static String formatBoolean(Object value) {
+        if (value instanceof Boolean b) return b ? "✅" : "❌";
+        return escape(String.valueOf(value));
+    }
+
+    private static String formatPrice(Object price) {
+        String digits = String.valueOf(price).replaceAll("\\D", "");
+        if (digits.isEmpty()) return escape(String.valueOf(price));
+        try {
+            return String.format(Locale.ROOT, "%,d VND", Long.parseLong(digits)).replace(',', '.');
+        } catch (NumberFormatException e) {
+            return escape(String.valueOf(price));
+        }
+    }
+
+    private static String formatImage(Object imagePath) {
+        if (imagePath == null || "".equals(imagePath)) return "";
+        return "<img src=\"/" + escape(String.valueOf(imagePath))
+            + "\" alt=\"Product Image\" style=\"max-width: 200px; height: auto; margin: 5px;\">";
+    }
+
+    private static String formatImages(Object images) {
+        if (images instanceof List<?> list) {
+            StringBuilder sb = new StringBuilder("<div class=\"image-gallery\">");
+            list.forEach(img -> sb.append(formatImage(img)));
+            return sb.append("</div>").toString();
+        }
+        return formatImage(images);
+    }
+
+    static String escape(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '<' -> sb.append("&lt;");
+                case '>' -> sb.append("&gt;");
+                case '&' -> sb.append("&amp;");
+                case '"' -> sb.append("&quot;");
+                case '\'' -> sb.append("&#39;");
+                default -> sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
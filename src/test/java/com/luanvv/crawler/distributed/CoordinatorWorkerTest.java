@@ -0,0 +1,77 @@
+package com.luanvv.crawler.distributed;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.luanvv.crawler.core.Config;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+// A coordinator and two workers talking over loopback TCP; the browser work is replaced by a processor that
+// turns each list page into detail items
+class CoordinatorWorkerTest {
+    private static final int PAGES = 3;
+    private static final int ROWS = 2;
+
+    @Test
+    void workersDrainListPagesAndTheirDetails() throws Exception {
+        Map<String, Integer> attempts = new ConcurrentHashMap<>();
+        AtomicBoolean failedOnce = new AtomicBoolean();
+        Worker.Processor processor = item -> {
+            attempts.merge(item.getUrl(), 1, Integer::sum);
+            if (item.getKind() == WorkItem.Kind.DETAIL) {
+                // One detail fails the first time and has to be handed out again
+                if (item.getUrl().endsWith("/1/0") && failedOnce.compareAndSet(false, true)) {
+                    throw new IllegalStateException("navigation timed out");
+                }
+                return List.of();
+            }
+            List<WorkItem> details = new ArrayList<>();
+            for (int row = 0; row < ROWS; row++) {
+                details.add(WorkItem.detail("detail", "https://example.com/item/" + item.getPageNumber() + "/" + row,
+                    "row_" + item.getPageNumber() + "_" + row));
+            }
+            return details;
+        };
+
+        ExecutorService workers = Executors.newFixedThreadPool(2);
+        try (Coordinator coordinator = new Coordinator(new Config())) {
+            coordinator.start(0);
+            for (int page = 1; page <= PAGES; page++) {
+                coordinator.queue().offer(WorkItem.listPage("list", "https://example.com/list?page=" + page, page));
+            }
+            coordinator.queue().markProducerDone();
+
+            List<Future<Integer>> processed = new ArrayList<>();
+            for (String id : List.of("w1", "w2")) {
+                processed.add(workers.submit(() -> {
+                    try (Worker worker = new Worker(new Config(), id)) {
+                        worker.connect("localhost", coordinator.getPort());
+                        return worker.drain(processor);
+                    }
+                }));
+            }
+            int total = 0;
+            for (Future<Integer> f : processed) {
+                total += f.get(30, TimeUnit.SECONDS);
+            }
+
+            assertEquals(PAGES + PAGES * ROWS, total);
+            assertTrue(coordinator.queue().isDrained());
+            assertTrue(coordinator.queue().stats().contains("completed=" + total + " failed=0"));
+            assertEquals(PAGES + PAGES * ROWS, attempts.size());
+            assertEquals(2, attempts.get("https://example.com/item/1/0"));
+            assertEquals(total + 1, attempts.values().stream().mapToInt(Integer::intValue).sum());
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+}
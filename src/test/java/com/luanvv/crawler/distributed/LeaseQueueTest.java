@@ -0,0 +1,111 @@
+package com.luanvv.crawler.distributed;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class LeaseQueueTest {
+    private static final long LEASE_MS = 1000;
+
+    @Test
+    void duplicateItemsAreOfferedOnce() {
+        LeaseQueue queue = new LeaseQueue(LEASE_MS, 3);
+        assertTrue(queue.offer(WorkItem.detail("detail", "https://example.com/a", "row_1")));
+        assertFalse(queue.offer(WorkItem.detail("detail", "https://example.com/a", "row_1")));
+        // Same URL on another list page is another item
+        assertTrue(queue.offer(WorkItem.listPage("list", "https://example.com/list", 1)));
+        assertTrue(queue.offer(WorkItem.listPage("list", "https://example.com/list", 2)));
+    }
+
+    @Test
+    void expiredLeaseIsReassigned() {
+        LeaseQueue queue = new LeaseQueue(LEASE_MS, 3);
+        queue.offer(WorkItem.detail("detail", "https://example.com/a", null));
+
+        LeaseQueue.Lease first = queue.claim("w1", 0);
+        assertNotNull(first);
+        assertNull(queue.claim("w2", LEASE_MS - 1), "item is still leased to w1");
+
+        LeaseQueue.Lease second = queue.claim("w2", LEASE_MS);
+        assertNotNull(second);
+        assertNotEquals(first.id(), second.id());
+        assertEquals("w2", second.workerId());
+        assertEquals(2, second.item().getAttempts());
+
+        // The reassigned lease owns the item, so the late result of the expired one is dropped
+        assertFalse(queue.complete(first.id()));
+        assertTrue(queue.complete(second.id()));
+        queue.markProducerDone();
+        assertTrue(queue.isDrained());
+        assertTrue(queue.stats().contains("completed=1"));
+    }
+
+    @Test
+    void renewedLeaseDoesNotExpire() {
+        LeaseQueue queue = new LeaseQueue(LEASE_MS, 3);
+        queue.offer(WorkItem.detail("detail", "https://example.com/a", null));
+
+        LeaseQueue.Lease lease = queue.claim("w1", 0);
+        assertTrue(queue.renew(lease.id(), LEASE_MS / 2));
+        assertEquals(0, queue.reapExpired(LEASE_MS));
+        assertNull(queue.claim("w2", LEASE_MS));
+        assertEquals(1, queue.reapExpired(LEASE_MS * 3 / 2));
+        assertFalse(queue.renew(lease.id(), LEASE_MS * 3 / 2));
+    }
+
+    @Test
+    void lateCompletionBeforeReassignmentIsAccepted() {
+        LeaseQueue queue = new LeaseQueue(LEASE_MS, 3);
+        queue.offer(WorkItem.detail("detail", "https://example.com/a", null));
+
+        LeaseQueue.Lease lease = queue.claim("w1", 0);
+        assertEquals(1, queue.reapExpired(LEASE_MS));
+        // w1 overran its lease but finished before anyone else took the item
+        assertTrue(queue.complete(lease.id()));
+        assertNull(queue.claim("w2", LEASE_MS));
+        queue.markProducerDone();
+        assertTrue(queue.isDrained());
+    }
+
+    @Test
+    void failedItemIsRetriedUpToMaxAttempts() {
+        LeaseQueue queue = new LeaseQueue(LEASE_MS, 2);
+        queue.offer(WorkItem.detail("detail", "https://example.com/a", null));
+        queue.markProducerDone();
+
+        LeaseQueue.Lease first = queue.claim("w1", 0);
+        queue.fail(first.id(), "timeout");
+        assertFalse(queue.isDrained());
+
+        LeaseQueue.Lease second = queue.claim("w2", 0);
+        assertNotNull(second);
+        assertEquals(2, second.item().getAttempts());
+        queue.fail(second.id(), "timeout");
+
+        assertNull(queue.claim("w1", 0), "item was given up after maxAttempts");
+        assertTrue(queue.isDrained());
+        assertTrue(queue.stats().contains("failed=1"));
+        // Given up items are not offered again
+        assertFalse(queue.offer(WorkItem.detail("detail", "https://example.com/a", null)));
+    }
+
+    @Test
+    void failureOfExpiredLeaseIsIgnored() {
+        LeaseQueue queue = new LeaseQueue(LEASE_MS, 1);
+        queue.offer(WorkItem.detail("detail", "https://example.com/a", null));
+
+        LeaseQueue.Lease first = queue.claim("w1", 0);
+        queue.reapExpired(LEASE_MS);
+        queue.fail(first.id(), "worker lost its lease");
+
+        LeaseQueue.Lease second = queue.claim("w2", LEASE_MS);
+        assertNotNull(second, "the requeued copy is still handed out");
+        assertTrue(queue.complete(second.id()));
+        assertTrue(queue.stats().contains("completed=1 failed=0"));
+    }
+}